@@ -0,0 +1,196 @@
+import exceptions.LimitExceededException;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.SplittableRandom;
+
+/**
+ * Generator of synthetic FSA of the given shape and number of transitions for the benchmarks.
+ * The same generated FSA can be written in the format of the input file ("fsa.txt") or built as Automaton directly
+ */
+public final class AutomatonGenerator {
+    /**
+     * Shapes of the generated FSA
+     */
+    public enum Shape {
+        /**
+         * s0 > a > s1 > a > s2 ... - the deepest traversal
+         */
+        CHAIN,
+        /**
+         * Every state has a transition by every token, the first token goes to the next state
+         */
+        COMPLETE_DFA,
+        /**
+         * Few states with many random transitions by two tokens
+         */
+        DENSE_NFA,
+        /**
+         * Two random transitions per state on average
+         */
+        RANDOM_SPARSE,
+        /**
+         * Two chains without transitions between them (E2)
+         */
+        DISCONNECTED
+    }
+
+    private static final int COMPLETE_DFA_SYMBOLS = 4;
+    private static final int DENSE_NFA_SYMBOLS = 2;
+    private static final int RANDOM_SPARSE_SYMBOLS = 8;
+    private static final int RANDOM_SPARSE_DEGREE = 2;
+    private final int stateCount;
+    private final int symbolCount;
+    /**
+     * Transitions as the sequence of triples (source, token, destination)
+     */
+    private final int[] transitions;
+
+    private AutomatonGenerator(int stateCount, int symbolCount, int[] transitions) {
+        this.stateCount = stateCount;
+        this.symbolCount = symbolCount;
+        this.transitions = transitions;
+    }
+
+    /**
+     * Generate FSA
+     *
+     * @param shape       shape of the FSA
+     * @param transitions approximate number of transitions
+     * @param seed        seed of the random transitions
+     * @return generated FSA
+     */
+    public static AutomatonGenerator generate(Shape shape, int transitions, long seed) {
+        SplittableRandom random = new SplittableRandom(seed);
+        transitions = Math.max(transitions, 1);
+
+        switch (shape) {
+            case CHAIN -> {
+                int[] triples = new int[3 * transitions];
+                for (int i = 0; i < transitions; i++) {
+                    set(triples, i, i, 0, i + 1);
+                }
+                return new AutomatonGenerator(transitions + 1, 1, triples);
+            }
+            case COMPLETE_DFA -> {
+                int states = Math.max(transitions / COMPLETE_DFA_SYMBOLS, 1);
+                int[] triples = new int[3 * states * COMPLETE_DFA_SYMBOLS];
+                int edge = 0;
+                for (int state = 0; state < states; state++) {
+                    set(triples, edge++, state, 0, (state + 1) % states);
+                    for (int symbol = 1; symbol < COMPLETE_DFA_SYMBOLS; symbol++) {
+                        set(triples, edge++, state, symbol, random.nextInt(states));
+                    }
+                }
+                return new AutomatonGenerator(states, COMPLETE_DFA_SYMBOLS, triples);
+            }
+            case DENSE_NFA -> {
+                int states = Math.max((int) Math.sqrt(transitions), 1);
+                int degree = Math.max(transitions / states, 1);
+                int[] triples = new int[3 * states * degree];
+                int edge = 0;
+                for (int state = 0; state < states; state++) {
+                    set(triples, edge++, state, 0, (state + 1) % states);
+                    for (int i = 1; i < degree; i++) {
+                        set(triples, edge++, state, random.nextInt(DENSE_NFA_SYMBOLS), random.nextInt(states));
+                    }
+                }
+                return new AutomatonGenerator(states, DENSE_NFA_SYMBOLS, triples);
+            }
+            case RANDOM_SPARSE -> {
+                int states = Math.max(transitions / RANDOM_SPARSE_DEGREE, 1);
+                int[] triples = new int[3 * transitions];
+                for (int i = 0; i < transitions; i++) {
+                    set(triples, i, random.nextInt(states), random.nextInt(RANDOM_SPARSE_SYMBOLS),
+                            random.nextInt(states));
+                }
+                return new AutomatonGenerator(states, RANDOM_SPARSE_SYMBOLS, triples);
+            }
+            case DISCONNECTED -> {
+                int half = Math.max(transitions / 2, 1);
+                int[] triples = new int[3 * 2 * half];
+                for (int i = 0; i < half; i++) {
+                    set(triples, i, i, 0, i + 1);
+                    set(triples, half + i, half + 1 + i, 0, half + 2 + i);
+                }
+                return new AutomatonGenerator(2 * half + 2, 1, triples);
+            }
+            default -> throw new IllegalArgumentException(shape.toString());
+        }
+    }
+
+    private static void set(int[] triples, int index, int source, int symbol, int destination) {
+        triples[3 * index] = source;
+        triples[3 * index + 1] = symbol;
+        triples[3 * index + 2] = destination;
+    }
+
+    public int getTransitionCount() {
+        return transitions.length / 3;
+    }
+
+    /**
+     * Build Automaton without the parsing
+     *
+     * @return generated FSA
+     */
+    public Automaton toAutomaton() {
+        SymbolTable states = new SymbolTable();
+        SymbolTable alphabet = new SymbolTable();
+        for (int state = 0; state < stateCount; state++) {
+            states.add("s" + state);
+        }
+        for (int symbol = 0; symbol < symbolCount; symbol++) {
+            alphabet.add("a" + symbol);
+        }
+
+        AutomatonBuilder builder = new AutomatonBuilder(states, alphabet);
+        builder.setInitialState(0);
+        builder.addFinalState(stateCount - 1);
+        for (int i = 0; i < transitions.length; i += 3) {
+            builder.addTransition(transitions[i], transitions[i + 1], transitions[i + 2]);
+        }
+        try {
+            return builder.build();
+        } catch (LimitExceededException e) {
+            // Generated transitions are already kept in one array
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * Write FSA in the format of the input file ("fsa.txt")
+     *
+     * @param writer destination of the text
+     * @throws IOException throws when writer fails
+     */
+    public void writeTo(Writer writer) throws IOException {
+        writer.write("states=[");
+        for (int state = 0; state < stateCount; state++) {
+            writer.write(state == 0 ? "s" : ",s");
+            writer.write(Integer.toString(state));
+        }
+
+        writer.write("]\nalpha=[");
+        for (int symbol = 0; symbol < symbolCount; symbol++) {
+            writer.write(symbol == 0 ? "a" : ",a");
+            writer.write(Integer.toString(symbol));
+        }
+
+        writer.write("]\ninit.st=[s0]\nfin.st=[s" + (stateCount - 1) + "]\ntrans=[");
+        for (int i = 0; i < transitions.length; i += 3) {
+            writer.write(i == 0 ? "s" : ",s");
+            writer.write(Integer.toString(transitions[i]));
+            writer.write(">a");
+            writer.write(Integer.toString(transitions[i + 1]));
+            writer.write(">s");
+            writer.write(Integer.toString(transitions[i + 2]));
+        }
+        writer.write("]\n");
+    }
+
+    @Override
+    public String toString() {
+        return "states=" + stateCount + ", alpha=" + symbolCount + ", trans=" + getTransitionCount();
+    }
+}
@@ -0,0 +1,64 @@
+import benchmarks.Workload;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * Parsing and checks of the Checker on the FSA from AutomatonGenerator; see benchmarks.ValidationBenchmark
+ */
+public class CheckerWorkload implements Workload {
+    private final Checker checker = new Checker();
+    private Path file;
+    private Automaton automaton;
+
+    @Override
+    public void setUp(String shape, int transitions, long seed) throws IOException {
+        AutomatonGenerator generator = AutomatonGenerator.generate(AutomatonGenerator.Shape.valueOf(shape),
+                transitions, seed);
+        file = Files.createTempFile("fsa", ".txt");
+        try (BufferedWriter writer = Files.newBufferedWriter(file)) {
+            generator.writeTo(writer);
+        }
+        automaton = generator.toAutomaton();
+    }
+
+    @Override
+    public int parse() throws Exception {
+        try (FileChannel channel = FileChannel.open(file)) {
+            return new FsaParser(channel).parse().getEdgeCount();
+        }
+    }
+
+    @Override
+    public boolean isDisjoint() {
+        return checker.isDisjoint(automaton);
+    }
+
+    @Override
+    public boolean areAllStatesReachable() {
+        return checker.areAllStatesReachable(automaton);
+    }
+
+    @Override
+    public boolean isDeterministic() {
+        return checker.isDeterministic(automaton);
+    }
+
+    @Override
+    public boolean isComplete() {
+        return checker.isComplete(automaton);
+    }
+
+    @Override
+    public Object analyzeTransitions() {
+        return checker.analyzeTransitions(automaton);
+    }
+
+    @Override
+    public void tearDown() throws IOException {
+        Files.deleteIfExists(file);
+    }
+}
@@ -0,0 +1,80 @@
+package benchmarks;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Time of the parsing and of every check of the Checker for every shape of AutomatonGenerator from 10 to 10M
+ * transitions. The FSA is generated once per trial (fork), so only the operation itself is measured.
+ * <p>
+ * Usage: mvn -P jmh package && java -jar target/benchmarks.jar [-p shape=CHAIN -p transitions=1000]
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+public class ValidationBenchmark {
+    @Param({"CHAIN", "COMPLETE_DFA", "DENSE_NFA", "RANDOM_SPARSE", "DISCONNECTED"})
+    public String shape;
+    @Param({"10", "1000", "100000", "1000000", "10000000"})
+    public int transitions;
+    @Param("42")
+    public long seed;
+    private Workload workload;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        workload = Workload.create(shape, transitions, seed);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        workload.tearDown();
+    }
+
+    @Benchmark
+    public int parse() throws Exception {
+        return workload.parse();
+    }
+
+    @Benchmark
+    public boolean isDisjoint() {
+        return workload.isDisjoint();
+    }
+
+    @Benchmark
+    public boolean areAllStatesReachable() {
+        return workload.areAllStatesReachable();
+    }
+
+    @Benchmark
+    public boolean isDeterministic() {
+        return workload.isDeterministic();
+    }
+
+    @Benchmark
+    public boolean isComplete() {
+        return workload.isComplete();
+    }
+
+    @Benchmark
+    public Object analyzeTransitions() {
+        return workload.analyzeTransitions();
+    }
+}
@@ -0,0 +1,57 @@
+package benchmarks;
+
+import java.io.IOException;
+
+/**
+ * Measured operations on one generated FSA. JMH does not accept benchmarks in the default package, and classes
+ * of the validator are in the default package, so they can not be imported here; the implementation is
+ * CheckerWorkload in the default package, created by the name.
+ */
+public interface Workload {
+    /**
+     * Name of the implementation in the default package
+     */
+    String IMPLEMENTATION = "CheckerWorkload";
+
+    /**
+     * Create the workload of the generated FSA
+     *
+     * @param shape       name of the shape of AutomatonGenerator.Shape
+     * @param transitions approximate number of transitions
+     * @param seed        seed of the random transitions
+     * @return workload with the parsed FSA and its text in the temporary file
+     * @throws IOException throws when the temporary file can not be written
+     */
+    static Workload create(String shape, int transitions, long seed) throws IOException {
+        try {
+            Workload workload = (Workload) Class.forName(IMPLEMENTATION).getDeclaredConstructor().newInstance();
+            workload.setUp(shape, transitions, seed);
+            return workload;
+        } catch (ReflectiveOperationException e) {
+            throw new IllegalStateException("Workload is not found: " + IMPLEMENTATION, e);
+        }
+    }
+
+    void setUp(String shape, int transitions, long seed) throws IOException;
+
+    /**
+     * @return number of parsed transitions
+     * @throws Exception throws when the file can not be read or parsed
+     */
+    int parse() throws Exception;
+
+    boolean isDisjoint();
+
+    boolean areAllStatesReachable();
+
+    boolean isDeterministic();
+
+    boolean isComplete();
+
+    Object analyzeTransitions();
+
+    /**
+     * Delete the temporary file
+     */
+    void tearDown() throws IOException;
+}
@@ -0,0 +1,93 @@
+/**
+ * Automaton on the heap: the compressed sparse row form in int arrays.
+ * Created only by AutomatonBuilder after the parsing.
+ */
+public final class ArrayAutomaton implements Automaton {
+    private final SymbolTable states;
+    private final SymbolTable alphabet;
+    private final int initialState;
+    private final int[] finalStates;
+    /**
+     * Offsets of the transitions of every state; the length is the number of states + 1
+     */
+    private final int[] offsets;
+    /**
+     * Destination state of every transition
+     */
+    private final int[] targets;
+    /**
+     * Transition token of every transition
+     */
+    private final int[] labels;
+
+    ArrayAutomaton(SymbolTable states, SymbolTable alphabet, int initialState, int[] finalStates,
+                   int[] offsets, int[] targets, int[] labels) {
+        this.states = states;
+        this.alphabet = alphabet;
+        this.initialState = initialState;
+        this.finalStates = finalStates;
+        this.offsets = offsets;
+        this.targets = targets;
+        this.labels = labels;
+    }
+
+    @Override
+    public int getStateCount() {
+        return states.size();
+    }
+
+    @Override
+    public int getSymbolCount() {
+        return alphabet.size();
+    }
+
+    @Override
+    public int getEdgeCount() {
+        return targets.length;
+    }
+
+    @Override
+    public int getInitialState() {
+        return initialState;
+    }
+
+    @Override
+    public int getFinalStateCount() {
+        return finalStates.length;
+    }
+
+    @Override
+    public int getFinalState(int index) {
+        return finalStates[index];
+    }
+
+    @Override
+    public int getOutStart(int state) {
+        return offsets[state];
+    }
+
+    @Override
+    public int getOutEnd(int state) {
+        return offsets[state + 1];
+    }
+
+    @Override
+    public int getTarget(int edge) {
+        return targets[edge];
+    }
+
+    @Override
+    public int getLabel(int edge) {
+        return labels[edge];
+    }
+
+    @Override
+    public String getStateName(int state) {
+        return states.getName(state);
+    }
+
+    @Override
+    public String getSymbolName(int symbol) {
+        return alphabet.getName(symbol);
+    }
+}
@@ -0,0 +1,46 @@
+/**
+ * Immutable FSA in the compressed sparse row form. States and transition tokens are presented by dense integer ids;
+ * all transitions from the state s are in the range [getOutStart(s), getOutEnd(s)) of the transitions,
+ * every transition has its destination state (target) and transition token (label).
+ * <p>
+ * Implementations keep the arrays on the heap (ArrayAutomaton) or in the mapped binary file (MappedAutomaton);
+ * all checks work with any of them.
+ */
+public interface Automaton {
+    /**
+     * Value of the initial state if it is not defined
+     */
+    int NO_STATE = -1;
+
+    int getStateCount();
+
+    int getSymbolCount();
+
+    int getEdgeCount();
+
+    int getInitialState();
+
+    int getFinalStateCount();
+
+    int getFinalState(int index);
+
+    /**
+     * @param state id of the state
+     * @return index of the first transition from the state
+     */
+    int getOutStart(int state);
+
+    /**
+     * @param state id of the state
+     * @return index after the last transition from the state
+     */
+    int getOutEnd(int state);
+
+    int getTarget(int edge);
+
+    int getLabel(int edge);
+
+    String getStateName(int state);
+
+    String getSymbolName(int symbol);
+}
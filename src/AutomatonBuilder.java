@@ -0,0 +1,146 @@
+import exceptions.LimitExceededException;
+
+import java.util.Arrays;
+
+/**
+ * Builder of the immutable Automaton. Transitions are collected in the order of the input file
+ * and grouped by the source state only once in build()
+ */
+public class AutomatonBuilder implements TransitionSink {
+    private static final int INITIAL_CAPACITY = 16;
+    /**
+     * Maximal length of the arrays; transitions are kept as triples in one array
+     */
+    private static final int MAX_ARRAY_SIZE = Integer.MAX_VALUE - 9;
+    static final int MAX_TRANSITIONS = MAX_ARRAY_SIZE / 3;
+    private final SymbolTable states;
+    private final SymbolTable alphabet;
+    private int initialState = Automaton.NO_STATE;
+    private int[] finalStates = new int[INITIAL_CAPACITY];
+    private int finalStatesCount = 0;
+    /**
+     * Transitions as the sequence of triples (source, token, destination)
+     */
+    private int[] transitions = new int[3 * INITIAL_CAPACITY];
+    private int transitionsCount = 0;
+    /**
+     * Description of the exceeded limit or null. Items over the limit are dropped and build() fails, so errors
+     * of the rest of the input are still found by the parsing
+     */
+    private String exceededLimit = null;
+
+    /**
+     * @param states   symbol table of the states names
+     * @param alphabet symbol table of the transition tokens names
+     */
+    public AutomatonBuilder(SymbolTable states, SymbolTable alphabet) {
+        this.states = states;
+        this.alphabet = alphabet;
+    }
+
+    public void setInitialState(int state) {
+        initialState = state;
+    }
+
+    public void addFinalState(int state) {
+        if (finalStatesCount == finalStates.length) {
+            if (finalStatesCount == MAX_ARRAY_SIZE) {
+                exceededLimit = MAX_ARRAY_SIZE + " final states";
+                return;
+            }
+            finalStates = grow(finalStates, finalStatesCount + 1L);
+        }
+        finalStates[finalStatesCount++] = state;
+    }
+
+    /**
+     * Add a transition source > token > destination
+     *
+     * @param source      id of the source state
+     * @param symbol      id of the transition token
+     * @param destination id of the destination state
+     */
+    @Override
+    public void addTransition(int source, int symbol, int destination) {
+        if (!reserveTransitions(1)) {
+            return;
+        }
+        int position = 3 * transitionsCount++;
+        transitions[position] = source;
+        transitions[position + 1] = symbol;
+        transitions[position + 2] = destination;
+    }
+
+    /**
+     * Add transitions in the given order
+     *
+     * @param triples sequence of triples (source, token, destination)
+     * @param count   number of transitions
+     */
+    @Override
+    public void addTransitions(int[] triples, int count) {
+        if (!reserveTransitions(count)) {
+            return;
+        }
+        System.arraycopy(triples, 0, transitions, 3 * transitionsCount, 3 * count);
+        transitionsCount += count;
+    }
+
+    /**
+     * Grow the array of transitions for the given number of new transitions
+     *
+     * @param count number of new transitions
+     * @return false - if the transitions exceed the limit; Otherwise, true
+     */
+    private boolean reserveTransitions(int count) {
+        long size = 3 * ((long) transitionsCount + count);
+        if (size > transitions.length) {
+            if (size > 3L * MAX_TRANSITIONS) {
+                exceededLimit = MAX_TRANSITIONS + " transitions";
+                return false;
+            }
+            transitions = grow(transitions, size);
+        }
+        return true;
+    }
+
+    /**
+     * Copy the array into the twice larger one, but not smaller than the size and not larger than the limit
+     */
+    private static int[] grow(int[] array, long size) {
+        return Arrays.copyOf(array, (int) Math.min(Math.max(2L * array.length, size), MAX_ARRAY_SIZE));
+    }
+
+    /**
+     * Group all collected transitions by the source state (stable counting sort) and create the Automaton
+     *
+     * @return immutable FSA
+     * @throws LimitExceededException throws when the transitions or the final states do not fit into an array
+     */
+    public Automaton build() throws LimitExceededException {
+        if (exceededLimit != null) {
+            throw new LimitExceededException(exceededLimit);
+        }
+        int stateCount = states.size();
+        int[] offsets = new int[stateCount + 1];
+        int[] targets = new int[transitionsCount];
+        int[] labels = new int[transitionsCount];
+
+        for (int i = 0; i < transitionsCount; i++) {
+            offsets[transitions[3 * i] + 1]++;
+        }
+        for (int i = 0; i < stateCount; i++) {
+            offsets[i + 1] += offsets[i];
+        }
+
+        int[] position = Arrays.copyOf(offsets, stateCount);
+        for (int i = 0; i < transitionsCount; i++) {
+            int edge = position[transitions[3 * i]]++;
+            labels[edge] = transitions[3 * i + 1];
+            targets[edge] = transitions[3 * i + 2];
+        }
+
+        return new ArrayAutomaton(states, alphabet, initialState, Arrays.copyOf(finalStates, finalStatesCount),
+                offsets, targets, labels);
+    }
+}
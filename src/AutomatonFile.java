@@ -0,0 +1,319 @@
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.IntBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Versioned binary format of the parsed FSA. All numbers are little-endian 32-bit integers:
+ * <pre>
+ * header:   magic "FSAB", version, states count, symbols count, transitions count, initial state,
+ *           final states count, length of the state names, length of the symbol names, reserved
+ * sections: final states, offsets (states count + 1), targets, labels,
+ *           state name offsets (states count + 1), symbol name offsets (symbols count + 1),
+ *           UTF-8 bytes of the state names, UTF-8 bytes of the symbol names
+ * </pre>
+ * The sections are exactly the arrays of the compressed sparse row form, so the mapped file is used as it is,
+ * without deserialization.
+ */
+public final class AutomatonFile {
+    /**
+     * Version of the format; it should be changed with every change of the layout
+     */
+    public static final int VERSION = 1;
+    private static final byte[] MAGIC = {'F', 'S', 'A', 'B'};
+    static final int HEADER_SIZE = 40;
+    private static final int BUFFER_SIZE = 1 << 16;
+    static final String MALFORMED_MESSAGE = "Malformed binary FSA";
+
+    private AutomatonFile() {
+    }
+
+    /**
+     * Check if the file is in the binary format (by its first bytes); the position of the channel is not changed
+     *
+     * @param channel channel of the file
+     * @return true - if the file starts with the magic of the format; Otherwise, false
+     * @throws IOException throws when file can not be read
+     */
+    public static boolean isBinary(FileChannel channel) throws IOException {
+        ByteBuffer magic = ByteBuffer.allocate(MAGIC.length);
+        while (magic.hasRemaining() && channel.read(magic, magic.position()) > 0) {
+            // Read until the magic is complete or the end of the file
+        }
+        return !magic.hasRemaining() && magic.flip().equals(ByteBuffer.wrap(MAGIC));
+    }
+
+    /**
+     * Check if the content starts with the magic of the binary format
+     *
+     * @param content content of the file from the position to the limit
+     * @return true - if the content is in the binary format; Otherwise, false
+     */
+    static boolean isBinary(ByteBuffer content) {
+        return content.remaining() >= MAGIC.length
+                && content.slice(content.position(), MAGIC.length).equals(ByteBuffer.wrap(MAGIC));
+    }
+
+    /**
+     * Write the FSA in the binary format
+     *
+     * @param automaton parsed FSA
+     * @param path      path of the binary file
+     * @throws IOException              throws when file can not be written
+     * @throws IllegalArgumentException throws when FSA has no initial state
+     */
+    public static void write(Automaton automaton, Path path) throws IOException {
+        if (automaton.getInitialState() == Automaton.NO_STATE) {
+            throw new IllegalArgumentException("FSA without the initial state can not be written");
+        }
+
+        int stateCount = automaton.getStateCount();
+        int symbolCount = automaton.getSymbolCount();
+        byte[][] stateNames = new byte[stateCount][];
+        byte[][] symbolNames = new byte[symbolCount][];
+        for (int state = 0; state < stateCount; state++) {
+            stateNames[state] = automaton.getStateName(state).getBytes(StandardCharsets.UTF_8);
+        }
+        for (int symbol = 0; symbol < symbolCount; symbol++) {
+            symbolNames[symbol] = automaton.getSymbolName(symbol).getBytes(StandardCharsets.UTF_8);
+        }
+
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING)) {
+            ByteBuffer buffer = ByteBuffer.allocate(BUFFER_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+            buffer.put(MAGIC);
+            buffer.putInt(VERSION);
+            buffer.putInt(stateCount);
+            buffer.putInt(symbolCount);
+            buffer.putInt(automaton.getEdgeCount());
+            buffer.putInt(automaton.getInitialState());
+            buffer.putInt(automaton.getFinalStateCount());
+            buffer.putInt(getTotalLength(stateNames));
+            buffer.putInt(getTotalLength(symbolNames));
+            buffer.putInt(0);
+
+            for (int i = 0; i < automaton.getFinalStateCount(); i++) {
+                putInt(channel, buffer, automaton.getFinalState(i));
+            }
+            for (int state = 0; state < stateCount; state++) {
+                putInt(channel, buffer, automaton.getOutStart(state));
+            }
+            putInt(channel, buffer, automaton.getEdgeCount());
+            for (int edge = 0; edge < automaton.getEdgeCount(); edge++) {
+                putInt(channel, buffer, automaton.getTarget(edge));
+            }
+            for (int edge = 0; edge < automaton.getEdgeCount(); edge++) {
+                putInt(channel, buffer, automaton.getLabel(edge));
+            }
+            putOffsets(channel, buffer, stateNames);
+            putOffsets(channel, buffer, symbolNames);
+            putBytes(channel, buffer, stateNames);
+            putBytes(channel, buffer, symbolNames);
+            flush(channel, buffer);
+        }
+    }
+
+    /**
+     * Map the binary file into memory. Arrays are used right in the mapped buffer; they are only scanned once
+     * to check that every id and offset is in its range. The mapping is released when the FSA is not used anymore
+     *
+     * @param path path of the binary file
+     * @return FSA over the mapped file
+     * @throws IOException throws when file can not be read or it is not a correct binary FSA
+     */
+    public static MappedAutomaton map(Path path) throws IOException {
+        try (FileChannel channel = FileChannel.open(path)) {
+            return map(channel);
+        }
+    }
+
+    /**
+     * Map the binary file into memory
+     *
+     * @param channel channel of the binary file
+     * @return FSA over the mapped file
+     * @throws IOException throws when file can not be read or it is not a correct binary FSA
+     */
+    public static MappedAutomaton map(FileChannel channel) throws IOException {
+        long size = channel.size();
+        if (size < HEADER_SIZE || size > Integer.MAX_VALUE) {
+            throw new IOException("Binary FSA has incorrect size: " + size);
+        }
+        return map(channel.map(FileChannel.MapMode.READ_ONLY, 0, size));
+    }
+
+    /**
+     * Use the binary file which is already in the memory, e.g. mapped
+     *
+     * @param content content of the binary file from the position to the limit
+     * @return FSA over the content
+     * @throws IOException throws when content is not a correct binary FSA
+     */
+    static MappedAutomaton map(ByteBuffer content) throws IOException {
+        ByteBuffer file = content.slice();
+        int size = file.remaining();
+        if (size < HEADER_SIZE) {
+            throw new IOException("Binary FSA has incorrect size: " + size);
+        }
+        Header header = readHeader(file.slice(0, HEADER_SIZE), size);
+
+        int position = HEADER_SIZE;
+        ByteBuffer finalStates = slice(file, position, header.finalStateCount());
+        position += 4 * header.finalStateCount();
+        ByteBuffer offsets = slice(file, position, header.stateCount() + 1);
+        position += 4 * (header.stateCount() + 1);
+        ByteBuffer targets = slice(file, position, header.edgeCount());
+        position += 4 * header.edgeCount();
+        ByteBuffer labels = slice(file, position, header.edgeCount());
+        position += 4 * header.edgeCount();
+        ByteBuffer stateNameOffsets = slice(file, position, header.stateCount() + 1);
+        position += 4 * (header.stateCount() + 1);
+        ByteBuffer symbolNameOffsets = slice(file, position, header.symbolCount() + 1);
+        position += 4 * (header.symbolCount() + 1);
+        ByteBuffer stateNames = file.slice(position, header.stateNamesLength());
+        position += header.stateNamesLength();
+        ByteBuffer symbolNames = file.slice(position, header.symbolNamesLength());
+
+        checkIds(finalStates.asIntBuffer(), header.stateCount());
+        checkOffsets(offsets.asIntBuffer(), header.edgeCount());
+        checkIds(targets.asIntBuffer(), header.stateCount());
+        checkIds(labels.asIntBuffer(), header.symbolCount());
+        checkOffsets(stateNameOffsets.asIntBuffer(), header.stateNamesLength());
+        checkOffsets(symbolNameOffsets.asIntBuffer(), header.symbolNamesLength());
+
+        return new MappedAutomaton(header.stateCount(), header.symbolCount(), header.initialState(),
+                finalStates.asIntBuffer(), offsets.asIntBuffer(), targets.asIntBuffer(), labels.asIntBuffer(),
+                stateNameOffsets.asIntBuffer(), stateNames, symbolNameOffsets.asIntBuffer(), symbolNames);
+    }
+
+    /**
+     * Check that every id of the section is in [0, count)
+     *
+     * @throws IOException throws when some id is out of the range
+     */
+    static void checkIds(IntBuffer ids, int count) throws IOException {
+        for (int i = 0; i < ids.limit(); i++) {
+            int id = ids.get(i);
+            if (id < 0 || id >= count) {
+                throw new IOException(MALFORMED_MESSAGE);
+            }
+        }
+    }
+
+    /**
+     * Check that offsets start at 0, do not decrease and end at the total length of the section
+     *
+     * @throws IOException throws when offsets are not correct
+     */
+    static void checkOffsets(IntBuffer offsets, int total) throws IOException {
+        int previous = 0;
+        for (int i = 0; i < offsets.limit(); i++) {
+            int offset = offsets.get(i);
+            if (i == 0 ? offset != 0 : offset < previous) {
+                throw new IOException(MALFORMED_MESSAGE);
+            }
+            previous = offset;
+        }
+        if (previous != total) {
+            throw new IOException(MALFORMED_MESSAGE);
+        }
+    }
+
+    /**
+     * Read and check the header of the binary file
+     *
+     * @param header first HEADER_SIZE bytes of the file
+     * @param size   size of the whole file
+     * @return counts and lengths of the sections
+     * @throws IOException throws when it is not a correct binary FSA
+     */
+    static Header readHeader(ByteBuffer header, long size) throws IOException {
+        header = header.duplicate().order(ByteOrder.LITTLE_ENDIAN);
+        if (header.limit() < HEADER_SIZE || !header.slice(0, MAGIC.length).equals(ByteBuffer.wrap(MAGIC))) {
+            throw new IOException("File is not a binary FSA");
+        }
+        if (header.getInt(4) != VERSION) {
+            throw new IOException("Unsupported version of the binary FSA: " + header.getInt(4));
+        }
+
+        Header result = new Header(header.getInt(8), header.getInt(12), header.getInt(16), header.getInt(20),
+                header.getInt(24), header.getInt(28), header.getInt(32));
+        if (result.stateCount() <= 0 || result.symbolCount() <= 0 || result.edgeCount() < 0
+                || result.finalStateCount() < 0 || result.stateNamesLength() < 0 || result.symbolNamesLength() < 0
+                || result.initialState() < 0 || result.initialState() >= result.stateCount()) {
+            throw new IOException("Binary FSA has incorrect header");
+        }
+
+        long expectedSize = HEADER_SIZE + 4L * (result.finalStateCount() + 2L * (result.stateCount() + 1)
+                + 2L * result.edgeCount() + result.symbolCount() + 1) + result.stateNamesLength()
+                + result.symbolNamesLength();
+        if (expectedSize != size) {
+            throw new IOException("Binary FSA is truncated or corrupted");
+        }
+        return result;
+    }
+
+    private static ByteBuffer slice(ByteBuffer file, int position, int intCount) {
+        return file.slice(position, 4 * intCount).order(ByteOrder.LITTLE_ENDIAN);
+    }
+
+    private static int getTotalLength(byte[][] names) throws IOException {
+        long length = 0;
+        for (byte[] name : names) {
+            length += name.length;
+        }
+        if (length > Integer.MAX_VALUE) {
+            throw new IOException("Names are too long for the binary FSA");
+        }
+        return (int) length;
+    }
+
+    private static void putOffsets(FileChannel channel, ByteBuffer buffer, byte[][] names) throws IOException {
+        int offset = 0;
+        for (byte[] name : names) {
+            putInt(channel, buffer, offset);
+            offset += name.length;
+        }
+        putInt(channel, buffer, offset);
+    }
+
+    private static void putBytes(FileChannel channel, ByteBuffer buffer, byte[][] names) throws IOException {
+        for (byte[] name : names) {
+            int written = 0;
+            while (written < name.length) {
+                if (!buffer.hasRemaining()) {
+                    flush(channel, buffer);
+                }
+                int length = Math.min(buffer.remaining(), name.length - written);
+                buffer.put(name, written, length);
+                written += length;
+            }
+        }
+    }
+
+    private static void putInt(FileChannel channel, ByteBuffer buffer, int value) throws IOException {
+        if (buffer.remaining() < Integer.BYTES) {
+            flush(channel, buffer);
+        }
+        buffer.putInt(value);
+    }
+
+    private static void flush(FileChannel channel, ByteBuffer buffer) throws IOException {
+        buffer.flip();
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+        buffer.clear();
+    }
+
+    /**
+     * Counts and lengths of the sections from the header of the binary file
+     */
+    record Header(int stateCount, int symbolCount, int edgeCount, int initialState, int finalStateCount,
+                  int stateNamesLength, int symbolNamesLength) {
+    }
+}
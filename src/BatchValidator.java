@@ -0,0 +1,225 @@
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Stream;
+
+/**
+ * Validator of many input files in one run. Files are validated concurrently on the fixed pool of threads;
+ * the queue of the pool is bounded, so when it is full, the thread which submits files validates the next file
+ * itself (backpressure instead of the unbounded growth of the queue).
+ * Results are written either next to every input file or to one stream in the JSON lines format.
+ */
+public class BatchValidator {
+    private static final String INPUT_EXTENSION = ".txt";
+    private static final String RESULT_EXTENSION = ".result.txt";
+    private static final int QUEUE_SIZE_PER_THREAD = 4;
+    private final int threads;
+    /**
+     * Writer of the aggregated JSON lines; if null, result of every input is written to its own result file
+     */
+    private final Writer jsonLinesWriter;
+    /**
+     * Cache of the results or null, if every file should be validated
+     */
+    private final ResultCache cache;
+    /**
+     * Collected metrics of all files or null
+     */
+    private final ValidationMetrics metrics;
+    /**
+     * Selected checks of every file
+     */
+    private final Set<ValidationCheck> checks;
+    private final AtomicInteger validatedCount = new AtomicInteger();
+    private final AtomicInteger failedCount = new AtomicInteger();
+    /**
+     * First failure of writing the JSON lines; later lines are not written. Guarded by jsonLinesWriter
+     */
+    private IOException outputFailure;
+
+    /**
+     * @param threads         number of threads which validate files
+     * @param jsonLinesWriter writer of the aggregated JSON lines or null for the result file per input
+     * @param cache           cache of the results or null
+     * @param metrics         collected metrics of all files or null
+     * @param checks          selected checks of every file
+     */
+    public BatchValidator(int threads, Writer jsonLinesWriter, ResultCache cache, ValidationMetrics metrics,
+                          Set<ValidationCheck> checks) {
+        this.threads = threads;
+        this.jsonLinesWriter = jsonLinesWriter;
+        this.cache = cache;
+        this.metrics = metrics;
+        this.checks = checks;
+    }
+
+    /**
+     * Get input files from the directory (all "*.txt" files in the directory and its subdirectories except
+     * result files) or from the manifest (one path per line, relative paths are resolved against the manifest
+     * directory)
+     *
+     * @param source directory or manifest
+     * @return stream of input files, it should be closed after the usage
+     * @throws IOException throws when source can not be read
+     */
+    public static Stream<Path> findInputs(Path source) throws IOException {
+        if (Files.isDirectory(source)) {
+            return Files.walk(source)
+                    .filter(Files::isRegularFile)
+                    .filter(path -> path.toString().endsWith(INPUT_EXTENSION))
+                    .filter(path -> !path.toString().endsWith(RESULT_EXTENSION));
+        }
+
+        Path directory = source.toAbsolutePath().getParent();
+        return Files.lines(source)
+                .map(String::strip)
+                .filter(line -> !line.isEmpty())
+                .map(directory::resolve);
+    }
+
+    /**
+     * Validate all input files
+     *
+     * @param inputs input files in the format of "fsa.txt"
+     * @throws IOException          throws when the JSON lines can not be written
+     * @throws InterruptedException throws when the thread is interrupted while waiting for the validation
+     */
+    public void validate(Stream<Path> inputs) throws IOException, InterruptedException {
+        ThreadPoolExecutor executor = new ThreadPoolExecutor(threads, threads, 0, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(QUEUE_SIZE_PER_THREAD * threads), new ThreadPoolExecutor.CallerRunsPolicy());
+
+        try {
+            inputs.forEach(input -> executor.execute(() -> validateFile(input)));
+        } finally {
+            executor.shutdown();
+            executor.awaitTermination(Long.MAX_VALUE, TimeUnit.MILLISECONDS);
+        }
+        if (jsonLinesWriter != null) {
+            synchronized (jsonLinesWriter) {
+                if (outputFailure != null) {
+                    throw outputFailure;
+                }
+            }
+        }
+    }
+
+    /**
+     * @return number of validated files
+     */
+    public int getValidatedCount() {
+        return validatedCount.get();
+    }
+
+    /**
+     * @return number of files which could not be validated
+     */
+    public int getFailedCount() {
+        return failedCount.get();
+    }
+
+    /**
+     * Validate one file; any failure of the file (including the runtime one, e.g. from the corrupted binary file)
+     * is the failure of this file only
+     */
+    private void validateFile(Path input) {
+        String line;
+        try {
+            ValidationResult result = cache == null ? FsaValidator.validate(input, metrics, checks)
+                    : cache.validate(input, metrics, checks);
+            if (jsonLinesWriter == null) {
+                try (BufferedWriter writer = Files.newBufferedWriter(getResultPath(input))) {
+                    writer.write(result.toString());
+                }
+                validatedCount.incrementAndGet();
+                return;
+            }
+            line = toJson(input, result);
+            validatedCount.incrementAndGet();
+        } catch (IOException | RuntimeException e) {
+            failedCount.incrementAndGet();
+            if (jsonLinesWriter == null) {
+                System.err.println(input + ": " + e);
+                return;
+            }
+            line = "{\"file\":" + quote(input.toString()) + ",\"failure\":" + quote(e.toString()) + "}";
+        }
+        writeJsonLine(line);
+    }
+
+    private void writeJsonLine(String line) {
+        synchronized (jsonLinesWriter) {
+            if (outputFailure != null) {
+                return;
+            }
+            try {
+                jsonLinesWriter.write(line);
+                jsonLinesWriter.write('\n');
+            } catch (IOException e) {
+                outputFailure = e;
+            }
+        }
+    }
+
+    /**
+     * Result file of the input, e.g. "dir/fsa.txt" --> "dir/fsa.result.txt"
+     */
+    private static Path getResultPath(Path input) {
+        String name = input.getFileName().toString();
+        if (name.endsWith(INPUT_EXTENSION)) {
+            name = name.substring(0, name.length() - INPUT_EXTENSION.length());
+        }
+        return input.resolveSibling(name + RESULT_EXTENSION);
+    }
+
+    /**
+     * Present result as one JSON object, e.g.
+     * {"file":"a.txt","error":null,"complete":true,"warnings":["W2"],"result":"FSA is complete\n..."}
+     */
+    static String toJson(Path input, ValidationResult result) {
+        StringBuilder json = new StringBuilder("{\"file\":").append(quote(input.toString()));
+        json.append(",\"error\":").append(result.isValid() ? "null" : quote(result.getErrorCode()));
+        json.append(",\"complete\":").append(result.isComplete());
+        json.append(",\"warnings\":[");
+        boolean isFirst = true;
+        for (int i = 1; i <= 3; i++) {
+            if (result.hasWarning(i)) {
+                json.append(isFirst ? "" : ",").append("\"W").append(i).append('"');
+                isFirst = false;
+            }
+        }
+        json.append("],\"result\":").append(quote(result.toString())).append('}');
+        return json.toString();
+    }
+
+    /**
+     * Make JSON string literal
+     */
+    static String quote(String text) {
+        StringBuilder quoted = new StringBuilder("\"");
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            switch (c) {
+                case '"' -> quoted.append("\\\"");
+                case '\\' -> quoted.append("\\\\");
+                case '\n' -> quoted.append("\\n");
+                case '\r' -> quoted.append("\\r");
+                case '\t' -> quoted.append("\\t");
+                default -> {
+                    if (c < ' ') {
+                        quoted.append(String.format("\\u%04x", (int) c));
+                    } else {
+                        quoted.append(c);
+                    }
+                }
+            }
+        }
+        return quoted.append('"').toString();
+    }
+}
@@ -1,5 +1,5 @@
-import java.util.ArrayList;
-import java.util.HashMap;
+import java.util.BitSet;
+import java.util.concurrent.ForkJoinPool;
 
 /**
  * The most essential class of the program. Implement all significant tests for the FSA validation
@@ -13,18 +13,28 @@ public class Checker {
     private static final int ASCII_0 = 48;
     private static final int ASCII_9 = 57;
     /**
-     * Array of states for checking if the FSA disjoint
+     * Flags of the character classes in CHARACTER_CLASSES
      */
-    private static final ArrayList<State> REACHED_STATES = new ArrayList<>();
+    private static final byte STATE_NAME_CHARACTER = 1;
+    private static final byte TRANSITION_NAME_CHARACTER = 2;
     /**
-     * Array of States which is the same as the original FSA States but without directions;
-     * (e.g. 1 --> 2 now 1 <--> 2)
+     * Classes of all byte values (and chars below 256): letters and digits are allowed in every name,
+     * underscore is allowed only in the transition token names, all other characters are not allowed
      */
-    private static final ArrayList<State> UNDIRECTED_STATES = new ArrayList<>();
+    private static final byte[] CHARACTER_CLASSES = new byte[256];
     /**
-     * HashMap which shows how many states can be visited from the initial state
+     * Number of transitions from which the reachability is checked by the parallel traversal
      */
-    private static final HashMap<State, Boolean> IS_VISITED_FROM_INITIAL_STATE = new HashMap<>();
+    private static final int PARALLEL_THRESHOLD = 1 << 22;
+
+    static {
+        for (int c = 0; c < CHARACTER_CLASSES.length; c++) {
+            if (isLetter(c) || isDigit(c)) {
+                CHARACTER_CLASSES[c] = STATE_NAME_CHARACTER | TRANSITION_NAME_CHARACTER;
+            }
+        }
+        CHARACTER_CLASSES[UNDERSCORE_ASCII] = TRANSITION_NAME_CHARACTER;
+    }
 
     /**
      * Check if the state name is correct according to task's condition
@@ -33,12 +43,19 @@ public class Checker {
      * @return true - if name is correct; Otherwise, false
      */
     public boolean isStateNameCorrect(String name) {
-        for (Character c : name.toCharArray()) {
-            if (!(isLetter(c) || isDigit(c))) {
-                return false;
-            }
-        }
-        return true;
+        return isNameCorrect(name, STATE_NAME_CHARACTER);
+    }
+
+    /**
+     * Check if the state name given by its UTF-8 bytes is correct according to task's condition
+     *
+     * @param bytes array with the bytes of the name
+     * @param from  start of the name in the array
+     * @param to    end of the name in the array (exclusive)
+     * @return true - if name is correct; Otherwise, false
+     */
+    public boolean isStateNameCorrect(byte[] bytes, int from, int to) {
+        return isNameCorrect(bytes, from, to, STATE_NAME_CHARACTER);
     }
 
     /**
@@ -48,174 +65,260 @@ public class Checker {
      * @return true - if name is correct; Otherwise, false
      */
     public boolean isTransitionNameCorrect(String name) {
-        for (Character c : name.toCharArray()) {
-            if (!(isLetter(c) || isDigit(c) || c == UNDERSCORE_ASCII)) {
+        return isNameCorrect(name, TRANSITION_NAME_CHARACTER);
+    }
+
+    /**
+     * Check if the transition token name given by its UTF-8 bytes is correct according to task's condition
+     *
+     * @param bytes array with the bytes of the name
+     * @param from  start of the name in the array
+     * @param to    end of the name in the array (exclusive)
+     * @return true - if name is correct; Otherwise, false
+     */
+    public boolean isTransitionNameCorrect(byte[] bytes, int from, int to) {
+        return isNameCorrect(bytes, from, to, TRANSITION_NAME_CHARACTER);
+    }
+
+    private static boolean isNameCorrect(String name, byte characterClass) {
+        for (int i = 0; i < name.length(); i++) {
+            char c = name.charAt(i);
+            if (c >= CHARACTER_CLASSES.length || (CHARACTER_CLASSES[c] & characterClass) == 0) {
                 return false;
             }
         }
         return true;
     }
 
-    private boolean isLetter(Character c) {
+    /**
+     * All bytes of multibyte UTF-8 characters are not ASCII, so they are rejected as the decoded characters
+     */
+    private static boolean isNameCorrect(byte[] bytes, int from, int to, byte characterClass) {
+        for (int i = from; i < to; i++) {
+            if ((CHARACTER_CLASSES[bytes[i] & 0xFF] & characterClass) == 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static boolean isLetter(int c) {
         return (A_ASCII <= c && c <= Z_ASCII) || (a_ASCII <= c && c <= z_ASCII);
     }
 
-    private boolean isDigit(Character c) {
+    private static boolean isDigit(int c) {
         return (ASCII_0 <= c && c <= ASCII_9);
     }
 
     /**
-     * Check if states are disjoint somehow
+     * Check if states are disjoint somehow. Directions of transitions are ignored
+     * (e.g. 1 --> 2 now 1 <--> 2), so all transitions are merged in the union-find in a single pass
      *
-     * @param states       original possible states
-     * @param initialState original initial state
+     * @param automaton parsed FSA
      * @return true - if states are disjoint; Otherwise, false
      */
-    public boolean isDisjoint(ArrayList<State> states, State initialState) {
-        createStatesUndirected(states);
-        State initialStateInUndirectedGraph = UNDIRECTED_STATES.get(UNDIRECTED_STATES.indexOf(getState(initialState)));
-        getAllPossibleReachedStates(initialStateInUndirectedGraph);
-        return REACHED_STATES.size() != states.size();
+    public boolean isDisjoint(Automaton automaton) {
+        return isDisjoint(automaton, null);
     }
 
     /**
-     * Create an undirected set of states from origin set of states.
-     * Undirected set will be saved in static variable UNDIRECTED_STATES.
+     * Check if states are disjoint somehow; very large FSA are traversed in parallel by the given traversal, so
+     * its incoming transitions are built once for all checks
      *
-     * @param states original set of all possible states
+     * @param automaton parsed FSA
+     * @param traversal parallel traversal of the FSA shared with other checks or null
+     * @return true - if states are disjoint; Otherwise, false
      */
-    private void createStatesUndirected(ArrayList<State> states) {
-        // Copy all states from the original set to undirectedStatesSet
-        for (State state : states) {
-            State newState = new State(state.getName());
-            UNDIRECTED_STATES.add(newState);
+    public boolean isDisjoint(Automaton automaton, ParallelReachability traversal) {
+        if (isParallelTraversalUseful(automaton)) {
+            return getTraversal(automaton, traversal).countConnectedStates() != automaton.getStateCount();
         }
 
-        // Implement old transitions between states in the new field on undirectedStatesSet.
-        // (Transitions were obtained from the original states transitions)
-        for (State state : states) {
-            for (State stateInner : state.getPossibleStatesToMove()) {
-                UNDIRECTED_STATES.get(UNDIRECTED_STATES.indexOf(getState(state))).addPossibleTransition(
-                        UNDIRECTED_STATES.get(UNDIRECTED_STATES.indexOf(getState(stateInner))), null
-                );
-            }
-        }
+        UnionFind components = new UnionFind(automaton.getStateCount());
 
-        // Implement addition transition from [tail_state] to [head_state].
-        // (e.g. [original set = (1: 2, 3; 2: ; 3: ); new set = (1: 2, 3; 2: 1 ; 3: 1)])
-        for (State state : UNDIRECTED_STATES) {
-            ArrayList<State> tempList = (ArrayList<State>) state.getPossibleStatesToMove().clone();
-            for (State innerState : tempList) {
-                innerState.addPossibleTransition(state, null);
+        for (int state = 0; state < automaton.getStateCount(); state++) {
+            for (int edge = automaton.getOutStart(state); edge < automaton.getOutEnd(state); edge++) {
+                // All states are already connected, other transitions can not change the answer
+                if (components.union(state, automaton.getTarget(edge)) && components.getSetsCount() == 1) {
+                    return false;
+                }
             }
         }
 
-        // Delete duplicates of states in every array of possible transitions from each state
-        for (State state : UNDIRECTED_STATES) {
-            state.setPossibleStatesToMove(new ArrayList<>(
-                    state.getPossibleStatesToMove().stream().distinct().toList()
-            ));
-        }
+        return components.getSetsCount() > 1;
     }
 
     /**
-     * Get state from the undirected set of states
+     * Check if all states are reachable from the initial state
      *
-     * @param state needed state
-     * @return State - if state is found; Otherwise, false
+     * @param automaton parsed FSA
+     * @return true - if all states are accessible from the initial state; Otherwise, false
      */
-    private State getState(State state) {
-        for (State stateUnd : UNDIRECTED_STATES) {
-            if (stateUnd.getName().equals(state.getName())) {
-                return stateUnd;
-            }
-        }
-        return null;
+    public boolean areAllStatesReachable(Automaton automaton) {
+        return countReachableStates(automaton) == automaton.getStateCount();
     }
 
     /**
-     * Fill REACHED_STATE by true if state connected with the other states
+     * Count states which are reachable from the initial state
      *
-     * @param initialState initial state for starting process of iteration over all states
+     * @param automaton parsed FSA
+     * @return number of states accessible from the initial state
      */
-    private void getAllPossibleReachedStates(State initialState) {
-        REACHED_STATES.add(initialState);
-        for (State state : initialState.getPossibleStatesToMove()) {
-            if (!REACHED_STATES.contains(state)) {
-                getAllPossibleReachedStates(state);
-            }
-        }
+    public int countReachableStates(Automaton automaton) {
+        return countReachableStates(automaton, null);
     }
 
     /**
-     * Check if all states are reachable from the initial state
+     * Count states which are reachable from the initial state
      *
-     * @param states       original set of all possible states
-     * @param initialState original initial state of FSA
-     * @return true - if all states are accessible from the initial state; Otherwise, false
+     * @param automaton parsed FSA
+     * @param traversal parallel traversal of the FSA shared with other checks or null
+     * @return number of states accessible from the initial state
      */
-    public boolean areAllStatesReachable(ArrayList<State> states, State initialState) {
-        // Fill the HashMap with false - we are didn't appear in this places now
-        for (State state : states) {
-            IS_VISITED_FROM_INITIAL_STATE.put(state, false);
+    public int countReachableStates(Automaton automaton, ParallelReachability traversal) {
+        if (isParallelTraversalUseful(automaton)) {
+            return getTraversal(automaton, traversal).countReachableStates();
         }
 
-        IS_VISITED_FROM_INITIAL_STATE.put(initialState, true);
+        return getReachableStates(automaton).cardinality();
+    }
 
-        makeMove(initialState);
+    private static ParallelReachability getTraversal(Automaton automaton, ParallelReachability traversal) {
+        return traversal != null ? traversal : new ParallelReachability(automaton, ForkJoinPool.commonPool());
+    }
 
-        return !IS_VISITED_FROM_INITIAL_STATE.containsValue(false);
+    /**
+     * The parallel traversal is used only for very large FSA and only if there is more than one core. It builds
+     * the incoming transitions on the heap, so the FSA in the direct memory is checked sequentially
+     *
+     * @param automaton parsed FSA
+     * @return true - if the parallel traversal should be used; Otherwise, false
+     */
+    private boolean isParallelTraversalUseful(Automaton automaton) {
+        return automaton.getEdgeCount() >= PARALLEL_THRESHOLD && ForkJoinPool.getCommonPoolParallelism() > 1
+                && !(automaton instanceof OffHeapAutomaton);
     }
 
     /**
-     * Support step for iteration over all possible moves from the initial state
+     * Find all states which can be visited from the initial state by the transitions of the FSA.
+     * Traversal is iterative with an explicit stack, so it is linear and does not depend on the call stack depth
      *
-     * @param state state from which we check every possible transition to another states
+     * @param automaton parsed FSA
+     * @return set of ids of the visited states
      */
-    private void makeMove(State state) {
-        for (State tempState : state.getPossibleStatesToMove()) {
-            if (IS_VISITED_FROM_INITIAL_STATE.get(tempState)) {
-                continue;
+    private BitSet getReachableStates(Automaton automaton) {
+        BitSet isVisitedFromInitialState = new BitSet(automaton.getStateCount());
+        // Every state is pushed at most once, since it is marked before pushing
+        int[] stack = new int[automaton.getStateCount()];
+        int stackSize = 0;
+
+        isVisitedFromInitialState.set(automaton.getInitialState());
+        stack[stackSize++] = automaton.getInitialState();
+        while (stackSize > 0) {
+            int state = stack[--stackSize];
+            for (int edge = automaton.getOutStart(state); edge < automaton.getOutEnd(state); edge++) {
+                int tempState = automaton.getTarget(edge);
+                if (!isVisitedFromInitialState.get(tempState)) {
+                    isVisitedFromInitialState.set(tempState);
+                    stack[stackSize++] = tempState;
+                }
             }
-            IS_VISITED_FROM_INITIAL_STATE.put(tempState, true);
-            makeMove(tempState);
         }
+
+        return isVisitedFromInitialState;
     }
 
     /**
      * Check if there is more than one transition with the same transition token for some state
      *
-     * @param states original set of possible states
+     * @param automaton parsed FSA
      * @return true - if there is no more than one transition with the same transition token for each token;
      * Otherwise, false
      */
-    public boolean isDeterministic(ArrayList<State> states) {
-        for (State state : states) {
-            int possibleTransitionsNumber = state.getTransitions().size();
-            int distinctPossibleTransitionsNumber = state.getTransitions().stream().distinct().toList().size();
-            if (possibleTransitionsNumber > distinctPossibleTransitionsNumber) {
-                return false;
-            }
-        }
-
-        return true;
+    public boolean isDeterministic(Automaton automaton) {
+        return analyzeTransitions(automaton, true, false).isDeterministic();
     }
 
     /**
      * Checking if the FSA is complete
      *
-     * @param states      original set of possible states
-     * @param transitions original set of possible transition tokens
+     * @param automaton parsed FSA
      * @return true - if FSA is complete; Otherwise, false
      */
-    public boolean isComplete(ArrayList<State> states, ArrayList<Transition> transitions) {
-        int transitionsCount = 0;
+    public boolean isComplete(Automaton automaton) {
+        return analyzeTransitions(automaton, false, true).isComplete();
+    }
+
+    /**
+     * Check both determinism and completeness of the FSA in one pass over all transitions
+     *
+     * @param automaton parsed FSA
+     * @return determinism and completeness of the FSA
+     */
+    public TransitionsProperties analyzeTransitions(Automaton automaton) {
+        return analyzeTransitions(automaton, true, true);
+    }
+
+    /**
+     * The fused pass over transitions of every state. Transition tokens of the current state are marked
+     * in the bitset: already marked token means nondeterminism, and the number of marked tokens is the number of
+     * distinct tokens for the completeness. Bits are cleared by the same transitions after every state, so there
+     * are no allocations in the loop. The pass stops as soon as all needed answers are known: completeness at
+     * the first state without some token, determinism at the first repeated token.
+     *
+     * @param automaton             parsed FSA
+     * @param isDeterminismNeeded   true - if the determinism should be found
+     * @param isCompletenessNeeded  true - if the completeness should be found
+     * @return determinism and completeness of the FSA; not needed answer may be not precise
+     */
+    public TransitionsProperties analyzeTransitions(Automaton automaton, boolean isDeterminismNeeded,
+                                                     boolean isCompletenessNeeded) {
+        int symbolCount = automaton.getSymbolCount();
+        long[] symbols = new long[(symbolCount + 63) >>> 6];
+        boolean isDeterministic = true;
+        // Every state should have transitions by all tokens to be complete
+        boolean isComplete = automaton.getEdgeCount() >= (long) automaton.getStateCount() * symbolCount;
 
-        for (State state : states) {
-            transitionsCount += state.getTransitions().stream().distinct().toList().size();
+        for (int state = 0; state < automaton.getStateCount(); state++) {
+            if (!(isDeterminismNeeded && isDeterministic) && !(isCompletenessNeeded && isComplete)) {
+                break;
+            }
+
+            int start = automaton.getOutStart(state);
+            int end = automaton.getOutEnd(state);
+            int distinctSymbolCount = 0;
+            for (int edge = start; edge < end; edge++) {
+                int label = automaton.getLabel(edge);
+                long bit = 1L << label;
+                if ((symbols[label >>> 6] & bit) != 0) {
+                    isDeterministic = false;
+                    if (!isCompletenessNeeded) {
+                        break;
+                    }
+                } else {
+                    symbols[label >>> 6] |= bit;
+                    distinctSymbolCount++;
+                }
+            }
+
+            if (distinctSymbolCount != symbolCount) {
+                isComplete = false;
+            }
+
+            for (int edge = start; edge < end; edge++) {
+                symbols[automaton.getLabel(edge) >>> 6] = 0;
+            }
         }
 
-        // Check if the number of transitions equal to needed number of transitions of FSA to be complete
-        return transitionsCount == states.size() * transitions.size();
+        return new TransitionsProperties(isDeterministic, isComplete);
+    }
+
+    /**
+     * Properties of the FSA which depend on the transition tokens of every state
+     *
+     * @param isDeterministic true - if there is no more than one transition with the same token from every state
+     * @param isComplete      true - if there are transitions by all tokens from every state
+     */
+    public record TransitionsProperties(boolean isDeterministic, boolean isComplete) {
     }
 }
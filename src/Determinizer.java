@@ -0,0 +1,228 @@
+import exceptions.LimitExceededException;
+
+import java.util.Arrays;
+
+/**
+ * Determinization of the FSA by the subset construction. Only subsets reachable from the initial state are built.
+ * <p>
+ * Every subset is the sorted array of ids of the original states without repetitions; all subsets are stored
+ * one after another in one int array and found by the open-addressing hash table, so a subset costs a few ints
+ * instead of an object. Subsets are processed in the order of creation (the work-list is the range of ids
+ * which are not processed yet). The construction stops with LimitExceededException as soon as the number of
+ * states or the estimated memory exceeds the limit, so the subset explosion does not exhaust the heap.
+ * <p>
+ * The result has states "q0", "q1", ... where "q0" is the initial state; it is deterministic, but it may be
+ * incomplete, since the empty subset is not added.
+ */
+public class Determinizer {
+    /**
+     * Estimated bytes of a state of the result besides the arrays: its name and the entry of the symbol table
+     */
+    private static final int STATE_OVERHEAD = 64;
+    private static final String STATE_PREFIX = "q";
+    private final Automaton automaton;
+    private final int maxStates;
+    private final long maxMemory;
+    /**
+     * Elements of all subsets one after another
+     */
+    private int[] elements = new int[1024];
+    private int elementsLength = 0;
+    /**
+     * Start of every subset in elements; the subset i is [subsetStarts[i], subsetStarts[i + 1])
+     */
+    private int[] subsetStarts = new int[65];
+    private int[] subsetHashes = new int[64];
+    private int subsetCount = 0;
+    /**
+     * Slots of the hash table: id of the subset plus one or 0 for the empty slot
+     */
+    private int[] slots = new int[128];
+    private long transitionCount = 0;
+
+    /**
+     * Determinizer without limits except the heap: the estimated memory is limited by half of the maximal heap
+     *
+     * @param automaton parsed FSA
+     */
+    public Determinizer(Automaton automaton) {
+        this(automaton, Integer.MAX_VALUE - 1, Runtime.getRuntime().maxMemory() / 2);
+    }
+
+    /**
+     * @param automaton parsed FSA
+     * @param maxStates maximal number of states of the result
+     * @param maxMemory maximal estimated bytes of the subsets and the result
+     */
+    public Determinizer(Automaton automaton, int maxStates, long maxMemory) {
+        this.automaton = automaton;
+        this.maxStates = maxStates;
+        this.maxMemory = maxMemory;
+    }
+
+    /**
+     * Build the deterministic FSA which accepts the same words
+     *
+     * @return deterministic FSA
+     * @throws LimitExceededException throws when the result exceeds the number of states or the memory
+     */
+    public Automaton determinize() throws LimitExceededException {
+        // Repeated names of tokens are the same token for the parser
+        SymbolTable alphabet = new SymbolTable();
+        int[] symbolIds = new int[automaton.getSymbolCount()];
+        for (int symbol = 0; symbol < automaton.getSymbolCount(); symbol++) {
+            String name = automaton.getSymbolName(symbol);
+            symbolIds[symbol] = alphabet.getId(name) == SymbolTable.NOT_FOUND ? alphabet.add(name)
+                    : alphabet.getId(name);
+        }
+
+        boolean[] isFinal = new boolean[automaton.getStateCount()];
+        for (int i = 0; i < automaton.getFinalStateCount(); i++) {
+            isFinal[automaton.getFinalState(i)] = true;
+        }
+
+        SymbolTable states = new SymbolTable();
+        AutomatonBuilder builder = new AutomatonBuilder(states, alphabet);
+        int[] subset = {automaton.getInitialState()};
+        findOrAdd(subset, subset.length, states);
+        builder.setInitialState(0);
+
+        // Transitions of the subset as (token << 32 | destination), sorted to group them by the token
+        long[] pairs = new long[64];
+        for (int current = 0; current < subsetCount; current++) {
+            int pairCount = 0;
+            boolean isCurrentFinal = false;
+            for (int i = subsetStarts[current]; i < subsetStarts[current + 1]; i++) {
+                int state = elements[i];
+                isCurrentFinal |= isFinal[state];
+                for (int edge = automaton.getOutStart(state); edge < automaton.getOutEnd(state); edge++) {
+                    if (pairCount == pairs.length) {
+                        pairs = Arrays.copyOf(pairs, 2 * pairs.length);
+                    }
+                    pairs[pairCount++] = (long) symbolIds[automaton.getLabel(edge)] << 32
+                            | automaton.getTarget(edge);
+                }
+            }
+            if (isCurrentFinal) {
+                builder.addFinalState(current);
+            }
+
+            Arrays.sort(pairs, 0, pairCount);
+            if (subset.length < pairCount) {
+                subset = new int[Math.max(pairCount, 2 * subset.length)];
+            }
+            int groupStart = 0;
+            while (groupStart < pairCount) {
+                int symbol = (int) (pairs[groupStart] >>> 32);
+                int size = 0;
+                int groupEnd = groupStart;
+                while (groupEnd < pairCount && (int) (pairs[groupEnd] >>> 32) == symbol) {
+                    int target = (int) pairs[groupEnd];
+                    if (size == 0 || subset[size - 1] != target) {
+                        subset[size++] = target;
+                    }
+                    groupEnd++;
+                }
+
+                builder.addTransition(current, symbol, findOrAdd(subset, size, states));
+                transitionCount++;
+                groupStart = groupEnd;
+            }
+        }
+
+        return builder.build();
+    }
+
+    /**
+     * @param state id of the state of the result
+     * @return sorted ids of the original states which form the state of the result
+     */
+    public int[] getSubset(int state) {
+        return Arrays.copyOfRange(elements, subsetStarts[state], subsetStarts[state + 1]);
+    }
+
+    /**
+     * Find the id of the subset or add it as the new state of the result
+     *
+     * @param subset sorted ids of the original states without repetitions
+     * @param size   number of ids in the subset
+     * @param states symbol table of the states of the result
+     * @return id of the subset
+     */
+    private int findOrAdd(int[] subset, int size, SymbolTable states) throws LimitExceededException {
+        int hash = hash(subset, size);
+        int mask = slots.length - 1;
+        int slot = hash & mask;
+        while (slots[slot] != 0) {
+            int id = slots[slot] - 1;
+            if (subsetHashes[id] == hash && Arrays.equals(elements, subsetStarts[id], subsetStarts[id + 1],
+                    subset, 0, size)) {
+                return id;
+            }
+            slot = (slot + 1) & mask;
+        }
+
+        checkLimits(size);
+        int id = subsetCount++;
+        if (subsetCount == subsetHashes.length) {
+            subsetHashes = Arrays.copyOf(subsetHashes, 2 * subsetHashes.length);
+            subsetStarts = Arrays.copyOf(subsetStarts, subsetHashes.length + 1);
+        }
+        if (elementsLength + size > elements.length) {
+            elements = Arrays.copyOf(elements, (int) Math.min(Integer.MAX_VALUE - 8,
+                    Math.max(2L * elements.length, (long) elementsLength + size)));
+        }
+        System.arraycopy(subset, 0, elements, elementsLength, size);
+        elementsLength += size;
+        subsetStarts[id + 1] = elementsLength;
+        subsetHashes[id] = hash;
+        states.add(STATE_PREFIX + id);
+
+        slots[slot] = id + 1;
+        if (2 * subsetCount > slots.length) {
+            rehash();
+        }
+        return id;
+    }
+
+    /**
+     * Check that the new subset of the given size does not exceed the limits
+     */
+    private void checkLimits(int size) throws LimitExceededException {
+        if (subsetCount >= maxStates) {
+            throw new LimitExceededException(maxStates + " states");
+        }
+        if ((long) elementsLength + size > Integer.MAX_VALUE - 8) {
+            throw new LimitExceededException((Integer.MAX_VALUE - 8) + " elements of all subsets");
+        }
+
+        // Arrays are doubled, so their next size is counted; every transition is 3 ints in the builder
+        long memory = Integer.BYTES * (2L * elements.length + 4L * subsetHashes.length + 2L * slots.length)
+                + 3L * Integer.BYTES * 2 * transitionCount + (long) STATE_OVERHEAD * subsetCount;
+        if (memory > maxMemory) {
+            throw new LimitExceededException(maxMemory + " bytes");
+        }
+    }
+
+    private void rehash() {
+        slots = new int[2 * slots.length];
+        int mask = slots.length - 1;
+        for (int id = 0; id < subsetCount; id++) {
+            int slot = subsetHashes[id] & mask;
+            while (slots[slot] != 0) {
+                slot = (slot + 1) & mask;
+            }
+            slots[slot] = id + 1;
+        }
+    }
+
+    private static int hash(int[] subset, int size) {
+        int hash = 1;
+        for (int i = 0; i < size; i++) {
+            hash = 31 * hash + subset[i];
+        }
+        hash ^= hash >>> 16;
+        hash *= 0x85EBCA6B;
+        return hash ^ (hash >>> 13);
+    }
+}
@@ -0,0 +1,504 @@
+import exceptions.*;
+
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.HashMap;
+
+/**
+ * FSA which can be edited one state or one transition at a time while results of the checks stay up to date.
+ * <ul>
+ * <li>W3 and completeness: every state keeps the number of its transitions by every token, and two global
+ * counters keep the number of (state, token) pairs with at least one and with more than one transition;
+ * every edit changes them in O(1).</li>
+ * <li>W2: the set of reachable states grows by the traversal of only new reached states after the addition
+ * of a transition. The whole set is recomputed lazily on the next query after the removal of a transition
+ * from a reachable state (except a loop, a transition to the initial state and a transition whose destination
+ * is still reached from the same source by another token), the removal of a reachable state and the change of
+ * the initial state.</li>
+ * <li>E2: components are merged in the union-find after the addition of a transition. They are recomputed
+ * lazily on the next query after the removal of a transition (except a loop and a transition between states
+ * which are still connected by another transition) and the removal of a state.</li>
+ * </ul>
+ * Transitions are stored in the per-state lists of outgoing and incoming transitions,
+ * so every edit costs O(degree) of the changed states.
+ */
+public class EditableAutomaton {
+    private static final int INITIAL_CAPACITY = 16;
+    private final Checker checker = new Checker();
+    /**
+     * Alphabet is fixed, since every new token would change the completeness of all states
+     */
+    private final SymbolTable alphabet;
+    private final HashMap<String, Integer> stateIds = new HashMap<>();
+    private String[] stateNames = new String[INITIAL_CAPACITY];
+    /**
+     * Number of ever added states; ids of removed states are not reused
+     */
+    private int idCount = 0;
+    private int liveStateCount = 0;
+    private int initialState = Automaton.NO_STATE;
+    private final BitSet finalStates = new BitSet();
+    /**
+     * Outgoing transitions of every state as pairs (destination, token)
+     */
+    private int[][] outEdges = new int[INITIAL_CAPACITY][];
+    private int[] outSizes = new int[INITIAL_CAPACITY];
+    /**
+     * Incoming transitions of every state as pairs (source, token)
+     */
+    private int[][] inEdges = new int[INITIAL_CAPACITY][];
+    private int[] inSizes = new int[INITIAL_CAPACITY];
+    /**
+     * Number of transitions from every state by every token
+     */
+    private int[][] symbolCounts = new int[INITIAL_CAPACITY][];
+    /**
+     * Number of pairs (state, token) with at least one transition
+     */
+    private long coveredPairs = 0;
+    /**
+     * Number of pairs (state, token) with more than one transition
+     */
+    private long nondeterministicPairs = 0;
+    private final BitSet reachable = new BitSet();
+    private int reachableCount = 0;
+    private boolean isReachabilityDirty = true;
+    /**
+     * Stack of markReachable; it is kept between edits, so an edit does not allocate it again
+     */
+    private int[] reachabilityStack = new int[INITIAL_CAPACITY];
+    private UnionFind components = null;
+    /**
+     * Number of sets in the union-find which are not live states (removed and not yet added ids)
+     */
+    private int unusedComponents = 0;
+    private boolean isConnectivityDirty = true;
+
+    /**
+     * @param alphabet symbol table of the transition tokens
+     */
+    public EditableAutomaton(SymbolTable alphabet) {
+        this.alphabet = alphabet;
+    }
+
+    /**
+     * Create editable copy of the parsed FSA
+     *
+     * @param automaton parsed FSA
+     * @return editable FSA with the same states, tokens and transitions
+     * @throws IllegalArgumentException throws when FSA has states with the same name
+     */
+    public static EditableAutomaton of(Automaton automaton) {
+        SymbolTable alphabet = new SymbolTable();
+        for (int symbol = 0; symbol < automaton.getSymbolCount(); symbol++) {
+            alphabet.add(automaton.getSymbolName(symbol));
+        }
+
+        EditableAutomaton editable = new EditableAutomaton(alphabet);
+        for (int state = 0; state < automaton.getStateCount(); state++) {
+            if (editable.stateIds.containsKey(automaton.getStateName(state))) {
+                throw new IllegalArgumentException("State '" + automaton.getStateName(state) + "' is repeated");
+            }
+            editable.insertState(automaton.getStateName(state));
+        }
+        if (automaton.getInitialState() != Automaton.NO_STATE) {
+            editable.initialState = automaton.getInitialState();
+        }
+        for (int i = 0; i < automaton.getFinalStateCount(); i++) {
+            editable.finalStates.set(automaton.getFinalState(i));
+        }
+        for (int state = 0; state < automaton.getStateCount(); state++) {
+            for (int edge = automaton.getOutStart(state); edge < automaton.getOutEnd(state); edge++) {
+                editable.insertEdge(state, automaton.getLabel(edge), automaton.getTarget(edge));
+            }
+        }
+        return editable;
+    }
+
+    /**
+     * Add a new state without transitions
+     *
+     * @param name name of the state
+     * @throws InputMalformedException  throws when name is not correct according to task's condition
+     * @throws IllegalArgumentException throws when state with this name already exists
+     */
+    public void addState(String name) throws InputMalformedException {
+        if (name.isEmpty() || !checker.isStateNameCorrect(name)) {
+            throw new InputMalformedException();
+        }
+        if (stateIds.containsKey(name)) {
+            throw new IllegalArgumentException("State '" + name + "' already exists");
+        }
+        insertState(name);
+    }
+
+    /**
+     * Remove the state with all its transitions. If the state is initial, initial state becomes not defined
+     *
+     * @param name name of the state
+     * @throws IncorrectStateException throws when state is not in the set of states
+     */
+    public void removeState(String name) throws IncorrectStateException {
+        int state = getStateId(name);
+
+        while (outSizes[state] > 0) {
+            int last = 2 * (outSizes[state] - 1);
+            deleteEdge(state, outEdges[state][last + 1], outEdges[state][last]);
+        }
+        while (inSizes[state] > 0) {
+            int last = 2 * (inSizes[state] - 1);
+            deleteEdge(inEdges[state][last], inEdges[state][last + 1], state);
+        }
+
+        if (!isReachabilityDirty && reachable.get(state)) {
+            isReachabilityDirty = true;
+        }
+        if (state == initialState) {
+            initialState = Automaton.NO_STATE;
+        }
+
+        // No pair of the state is covered now, and the state is not counted in the needed pairs anymore
+        symbolCounts[state] = null;
+        outEdges[state] = null;
+        inEdges[state] = null;
+        finalStates.clear(state);
+        stateIds.remove(name);
+        stateNames[state] = null;
+        liveStateCount--;
+        isConnectivityDirty = true;
+    }
+
+    /**
+     * @param name name of the new initial state
+     * @throws IncorrectStateException throws when state is not in the set of states
+     */
+    public void setInitialState(String name) throws IncorrectStateException {
+        initialState = getStateId(name);
+        isReachabilityDirty = true;
+    }
+
+    /**
+     * @param name name of the state which becomes final
+     * @throws IncorrectStateException throws when state is not in the set of states
+     */
+    public void addFinalState(String name) throws IncorrectStateException {
+        finalStates.set(getStateId(name));
+    }
+
+    /**
+     * @param name name of the state which is not final anymore
+     * @throws IncorrectStateException throws when state is not in the set of states
+     */
+    public void removeFinalState(String name) throws IncorrectStateException {
+        finalStates.clear(getStateId(name));
+    }
+
+    /**
+     * Add a transition source > token > destination
+     *
+     * @param source      name of the source state
+     * @param symbol      name of the transition token
+     * @param destination name of the destination state
+     * @throws IncorrectStateException           throws when some state is not in the set of states
+     * @throws TransitionIsNotPresentedException throws when token is not in the alphabet
+     */
+    public void addTransition(String source, String symbol, String destination)
+            throws IncorrectStateException, TransitionIsNotPresentedException {
+        int sourceState = getStateId(source);
+        int label = getSymbolId(symbol);
+        int destState = getStateId(destination);
+        insertEdge(sourceState, label, destState);
+    }
+
+    /**
+     * Remove one transition source > token > destination
+     *
+     * @param source      name of the source state
+     * @param symbol      name of the transition token
+     * @param destination name of the destination state
+     * @return true - if the transition was removed; false - if there is no such transition
+     * @throws IncorrectStateException           throws when some state is not in the set of states
+     * @throws TransitionIsNotPresentedException throws when token is not in the alphabet
+     */
+    public boolean removeTransition(String source, String symbol, String destination)
+            throws IncorrectStateException, TransitionIsNotPresentedException {
+        int sourceState = getStateId(source);
+        int label = getSymbolId(symbol);
+        int destState = getStateId(destination);
+        if (symbolCounts[sourceState][label] == 0) {
+            return false;
+        }
+        return deleteEdge(sourceState, label, destState);
+    }
+
+    /**
+     * @return true - if states are disjoint; Otherwise, false
+     */
+    public boolean isDisjoint() {
+        if (isConnectivityDirty) {
+            recomputeComponents();
+        }
+        return components.getSetsCount() - unusedComponents > 1;
+    }
+
+    /**
+     * @return true - if all states are accessible from the initial state; Otherwise, false
+     */
+    public boolean areAllStatesReachable() {
+        if (isReachabilityDirty) {
+            recomputeReachability();
+        }
+        return reachableCount == liveStateCount;
+    }
+
+    /**
+     * @return true - if there is no more than one transition with the same transition token for each token;
+     * Otherwise, false
+     */
+    public boolean isDeterministic() {
+        return nondeterministicPairs == 0;
+    }
+
+    /**
+     * @return true - if FSA is complete; Otherwise, false
+     */
+    public boolean isComplete() {
+        return coveredPairs == (long) liveStateCount * alphabet.size();
+    }
+
+    /**
+     * Get the result of the validation of the current FSA, the same as the result of the full validation
+     *
+     * @return result of the validation
+     */
+    public ValidationResult getResult() {
+        if (liveStateCount == 0) {
+            return ValidationResult.ofError(new InputMalformedException());
+        }
+        if (initialState == Automaton.NO_STATE) {
+            return ValidationResult.ofError(new InitialStateNotDefinedException());
+        }
+        if (isDisjoint()) {
+            return ValidationResult.ofError(new DisjointStatesException());
+        }
+
+        ReportFormation report = new ReportFormation();
+        if (finalStates.isEmpty()) {
+            report.markWarning(1);
+        }
+        if (!areAllStatesReachable()) {
+            report.markWarning(2);
+        }
+        if (!isDeterministic()) {
+            report.markWarning(3);
+        }
+        report.markCompleteness(isComplete());
+        return ValidationResult.ofReport(report);
+    }
+
+    /**
+     * Create immutable snapshot of the current FSA. Live states get dense ids in the order of their addition
+     *
+     * @return parsed FSA with the same states, tokens and transitions
+     * @throws LimitExceededException throws when transitions do not fit into the memory of the FSA
+     */
+    public Automaton toAutomaton() throws LimitExceededException {
+        SymbolTable states = new SymbolTable();
+        int[] newIds = new int[idCount];
+        for (int state = 0; state < idCount; state++) {
+            if (stateNames[state] != null) {
+                newIds[state] = states.add(stateNames[state]);
+            }
+        }
+
+        AutomatonBuilder builder = new AutomatonBuilder(states, alphabet);
+        if (initialState != Automaton.NO_STATE) {
+            builder.setInitialState(newIds[initialState]);
+        }
+        for (int state = finalStates.nextSetBit(0); state >= 0; state = finalStates.nextSetBit(state + 1)) {
+            builder.addFinalState(newIds[state]);
+        }
+        for (int state = 0; state < idCount; state++) {
+            for (int i = 0; i < 2 * outSizes[state]; i += 2) {
+                builder.addTransition(newIds[state], outEdges[state][i + 1], newIds[outEdges[state][i]]);
+            }
+        }
+        return builder.build();
+    }
+
+    private int getStateId(String name) throws IncorrectStateException {
+        Integer state = stateIds.get(name);
+        if (state == null) {
+            throw new IncorrectStateException(name);
+        }
+        return state;
+    }
+
+    private int getSymbolId(String name) throws TransitionIsNotPresentedException {
+        int symbol = alphabet.getId(name);
+        if (symbol == SymbolTable.NOT_FOUND) {
+            throw new TransitionIsNotPresentedException(name);
+        }
+        return symbol;
+    }
+
+    private void insertState(String name) {
+        if (idCount == stateNames.length) {
+            int capacity = 2 * stateNames.length;
+            stateNames = Arrays.copyOf(stateNames, capacity);
+            outEdges = Arrays.copyOf(outEdges, capacity);
+            outSizes = Arrays.copyOf(outSizes, capacity);
+            inEdges = Arrays.copyOf(inEdges, capacity);
+            inSizes = Arrays.copyOf(inSizes, capacity);
+            symbolCounts = Arrays.copyOf(symbolCounts, capacity);
+        }
+
+        int state = idCount++;
+        stateNames[state] = name;
+        stateIds.put(name, state);
+        outEdges[state] = new int[0];
+        inEdges[state] = new int[0];
+        symbolCounts[state] = new int[alphabet.size()];
+        liveStateCount++;
+
+        // The new state is one more component; it is not reachable
+        if (!isConnectivityDirty && state < components.getSize()) {
+            unusedComponents--;
+        } else {
+            isConnectivityDirty = true;
+        }
+    }
+
+    private void insertEdge(int source, int label, int destination) {
+        outEdges[source] = append(outEdges[source], outSizes[source]++, destination, label);
+        inEdges[destination] = append(inEdges[destination], inSizes[destination]++, source, label);
+
+        int count = ++symbolCounts[source][label];
+        if (count == 1) {
+            coveredPairs++;
+        } else if (count == 2) {
+            nondeterministicPairs++;
+        }
+
+        if (!isConnectivityDirty) {
+            components.union(source, destination);
+        }
+        if (!isReachabilityDirty && reachable.get(source) && !reachable.get(destination)) {
+            markReachable(destination);
+        }
+    }
+
+    /**
+     * Remove one transition source > token > destination if it exists
+     */
+    private boolean deleteEdge(int source, int label, int destination) {
+        if (!removePair(outEdges[source], outSizes[source], destination, label)) {
+            return false;
+        }
+        outSizes[source]--;
+        removePair(inEdges[destination], inSizes[destination], source, label);
+        inSizes[destination]--;
+
+        int count = --symbolCounts[source][label];
+        if (count == 0) {
+            coveredPairs--;
+        } else if (count == 1) {
+            nondeterministicPairs--;
+        }
+
+        boolean isStillReached = source == destination || hasEdge(source, destination);
+        // States may be not connected anymore
+        if (!isStillReached && !hasEdge(destination, source)) {
+            isConnectivityDirty = true;
+        }
+        // Destination may be not reachable anymore
+        if (!isReachabilityDirty && reachable.get(source) && !isStillReached && destination != initialState) {
+            isReachabilityDirty = true;
+        }
+        return true;
+    }
+
+    /**
+     * @return true - if there is a transition from the source to the destination by any token; Otherwise, false
+     */
+    private boolean hasEdge(int source, int destination) {
+        for (int i = 0; i < 2 * outSizes[source]; i += 2) {
+            if (outEdges[source][i] == destination) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Append the pair to the list of pairs, the array grows twice if it is full
+     */
+    private static int[] append(int[] pairs, int size, int first, int second) {
+        if (2 * size == pairs.length) {
+            pairs = Arrays.copyOf(pairs, Math.max(2 * pairs.length, 4));
+        }
+        pairs[2 * size] = first;
+        pairs[2 * size + 1] = second;
+        return pairs;
+    }
+
+    /**
+     * Remove the pair from the list of pairs by moving the last pair on its place
+     */
+    private static boolean removePair(int[] pairs, int size, int first, int second) {
+        for (int i = 0; i < 2 * size; i += 2) {
+            if (pairs[i] == first && pairs[i + 1] == second) {
+                pairs[i] = pairs[2 * size - 2];
+                pairs[i + 1] = pairs[2 * size - 1];
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private void recomputeReachability() {
+        reachable.clear();
+        reachableCount = 0;
+        if (initialState != Automaton.NO_STATE) {
+            markReachable(initialState);
+        }
+        isReachabilityDirty = false;
+    }
+
+    /**
+     * Mark the state and all states reachable from it which are not marked yet
+     */
+    private void markReachable(int state) {
+        int[] stack = reachabilityStack;
+        int stackSize = 0;
+
+        reachable.set(state);
+        reachableCount++;
+        stack[stackSize++] = state;
+        while (stackSize > 0) {
+            int current = stack[--stackSize];
+            for (int i = 0; i < 2 * outSizes[current]; i += 2) {
+                int next = outEdges[current][i];
+                if (!reachable.get(next)) {
+                    reachable.set(next);
+                    reachableCount++;
+                    if (stackSize == stack.length) {
+                        stack = reachabilityStack = Arrays.copyOf(stack, 2 * stack.length);
+                    }
+                    stack[stackSize++] = next;
+                }
+            }
+        }
+    }
+
+    private void recomputeComponents() {
+        components = new UnionFind(stateNames.length);
+        unusedComponents = stateNames.length - liveStateCount;
+        for (int state = 0; state < idCount; state++) {
+            for (int i = 0; i < 2 * outSizes[state]; i += 2) {
+                components.union(state, outEdges[state][i]);
+            }
+        }
+        isConnectivityDirty = false;
+    }
+}
@@ -0,0 +1,326 @@
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Transitions which are kept on disk instead of the memory. Parsed transitions are collected into the run of
+ * the fixed size; the full run is sorted by (source, token) and written to the temporary file. merge() reads
+ * all runs at once and passes transitions to the consumer in the (source, token) order, so the memory depends
+ * only on the size of the run and the number of runs, not on the number of transitions.
+ * <p>
+ * Runs are sorted by the LSD radix sort on 16-bit digits, which is linear and keeps the three arrays together.
+ * If there are more runs than MAX_FAN_IN, they are merged by groups into longer runs first.
+ */
+class ExternalTransitions implements TransitionSink, AutoCloseable {
+    private static final int MAX_FAN_IN = 128;
+    private static final int RADIX_BITS = 16;
+    private static final int RADIX = 1 << RADIX_BITS;
+    private static final int BUFFER_SIZE = 12 << 12;
+    private final Path directory;
+    /**
+     * Current run; sorted arrays are the destination of the radix sort and are swapped with them
+     */
+    private int[] sources;
+    private int[] symbols;
+    private int[] destinations;
+    private int[] sortedSources;
+    private int[] sortedSymbols;
+    private int[] sortedDestinations;
+    private int runLength = 0;
+    private long transitionCount = 0;
+    private final List<Path> runs = new ArrayList<>();
+
+    /**
+     * @param directory directory of the temporary files of the runs
+     * @param runSize   number of transitions in the run; every transition of the run takes 24 bytes
+     */
+    ExternalTransitions(Path directory, int runSize) {
+        this.directory = directory;
+        sources = new int[runSize];
+        symbols = new int[runSize];
+        destinations = new int[runSize];
+        sortedSources = new int[runSize];
+        sortedSymbols = new int[runSize];
+        sortedDestinations = new int[runSize];
+    }
+
+    @Override
+    public void addTransition(int source, int symbol, int destination) throws IOException {
+        if (runLength == sources.length) {
+            spill();
+        }
+        sources[runLength] = source;
+        symbols[runLength] = symbol;
+        destinations[runLength++] = destination;
+        transitionCount++;
+    }
+
+    @Override
+    public void addTransitions(int[] triples, int count) throws IOException {
+        for (int i = 0; i < count; i++) {
+            addTransition(triples[3 * i], triples[3 * i + 1], triples[3 * i + 2]);
+        }
+    }
+
+    /**
+     * @return number of added transitions
+     */
+    long getTransitionCount() {
+        return transitionCount;
+    }
+
+    /**
+     * @return number of runs written to disk so far
+     */
+    int getRunCount() {
+        return runs.size();
+    }
+
+    /**
+     * Pass all transitions to the consumer in the order of (source, token); the order of transitions with the
+     * same source and token is not defined
+     *
+     * @param consumer consumer of the transitions
+     * @throws IOException throws when runs can not be read or written
+     */
+    void merge(TransitionSink consumer) throws IOException {
+        if (runs.isEmpty()) {
+            // Everything fits into one run, it is not written at all
+            sortRun();
+            for (int i = 0; i < runLength; i++) {
+                consumer.addTransition(sources[i], symbols[i], destinations[i]);
+            }
+            return;
+        }
+
+        if (runLength > 0) {
+            spill();
+        }
+        while (runs.size() > MAX_FAN_IN) {
+            List<Path> group = new ArrayList<>(runs.subList(0, MAX_FAN_IN));
+            runs.subList(0, MAX_FAN_IN).clear();
+            try (RunWriter writer = new RunWriter(Files.createTempFile(directory, "fsa-run", ".bin"))) {
+                runs.add(writer.path);
+                merge(group, writer);
+            }
+            for (Path run : group) {
+                Files.deleteIfExists(run);
+            }
+        }
+        merge(runs, consumer);
+    }
+
+    /**
+     * K-way merge of the runs by the binary heap of their readers
+     */
+    private static void merge(List<Path> runs, TransitionSink consumer) throws IOException {
+        RunReader[] heap = new RunReader[runs.size()];
+        int heapSize = 0;
+        try {
+            for (Path run : runs) {
+                RunReader reader = new RunReader(run);
+                if (reader.next()) {
+                    heap[heapSize++] = reader;
+                } else {
+                    reader.close();
+                }
+            }
+            for (int i = heapSize / 2 - 1; i >= 0; i--) {
+                siftDown(heap, heapSize, i);
+            }
+
+            while (heapSize > 0) {
+                RunReader top = heap[0];
+                consumer.addTransition(top.source, top.symbol, top.destination);
+                if (!top.next()) {
+                    top.close();
+                    heap[0] = heap[--heapSize];
+                    heap[heapSize] = null;
+                }
+                siftDown(heap, heapSize, 0);
+            }
+        } finally {
+            for (int i = 0; i < heapSize; i++) {
+                heap[i].close();
+            }
+        }
+    }
+
+    private static void siftDown(RunReader[] heap, int heapSize, int index) {
+        RunReader reader = heap[index];
+        while (2 * index + 1 < heapSize) {
+            int child = 2 * index + 1;
+            if (child + 1 < heapSize && heap[child + 1].key < heap[child].key) {
+                child++;
+            }
+            if (reader.key <= heap[child].key) {
+                break;
+            }
+            heap[index] = heap[child];
+            index = child;
+        }
+        heap[index] = reader;
+    }
+
+    /**
+     * Sort the current run and write it to the new temporary file
+     */
+    private void spill() throws IOException {
+        sortRun();
+        try (RunWriter writer = new RunWriter(Files.createTempFile(directory, "fsa-run", ".bin"))) {
+            runs.add(writer.path);
+            for (int i = 0; i < runLength; i++) {
+                writer.addTransition(sources[i], symbols[i], destinations[i]);
+            }
+        }
+        runLength = 0;
+    }
+
+    /**
+     * Stable LSD radix sort of the current run by (source, token). Passes where all keys have the same digit
+     * are skipped, e.g. the high digits of the tokens of a small alphabet
+     */
+    private void sortRun() {
+        int[] counts = new int[RADIX + 1];
+        for (int pass = 0; pass < 4 && runLength > 0; pass++) {
+            int[] keys = pass < 2 ? symbols : sources;
+            int shift = (pass & 1) * RADIX_BITS;
+            Arrays.fill(counts, 0);
+            for (int i = 0; i < runLength; i++) {
+                counts[((keys[i] >>> shift) & (RADIX - 1)) + 1]++;
+            }
+            if (counts[((keys[0] >>> shift) & (RADIX - 1)) + 1] == runLength) {
+                continue;
+            }
+            for (int digit = 0; digit < RADIX; digit++) {
+                counts[digit + 1] += counts[digit];
+            }
+
+            for (int i = 0; i < runLength; i++) {
+                int position = counts[(keys[i] >>> shift) & (RADIX - 1)]++;
+                sortedSources[position] = sources[i];
+                sortedSymbols[position] = symbols[i];
+                sortedDestinations[position] = destinations[i];
+            }
+
+            int[] swap = sources;
+            sources = sortedSources;
+            sortedSources = swap;
+            swap = symbols;
+            symbols = sortedSymbols;
+            sortedSymbols = swap;
+            swap = destinations;
+            destinations = sortedDestinations;
+            sortedDestinations = swap;
+        }
+    }
+
+    /**
+     * Delete all temporary files of the runs
+     */
+    @Override
+    public void close() throws IOException {
+        for (Path run : runs) {
+            Files.deleteIfExists(run);
+        }
+        runs.clear();
+    }
+
+    /**
+     * Writer of the run: triples of little-endian ints
+     */
+    private static final class RunWriter implements TransitionSink, AutoCloseable {
+        private final Path path;
+        private final FileChannel channel;
+        private final ByteBuffer buffer = ByteBuffer.allocateDirect(BUFFER_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+
+        RunWriter(Path path) throws IOException {
+            this.path = path;
+            channel = FileChannel.open(path, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING);
+        }
+
+        @Override
+        public void addTransition(int source, int symbol, int destination) throws IOException {
+            if (buffer.remaining() < 3 * Integer.BYTES) {
+                flush();
+            }
+            buffer.putInt(source).putInt(symbol).putInt(destination);
+        }
+
+        @Override
+        public void addTransitions(int[] triples, int count) throws IOException {
+            for (int i = 0; i < count; i++) {
+                addTransition(triples[3 * i], triples[3 * i + 1], triples[3 * i + 2]);
+            }
+        }
+
+        private void flush() throws IOException {
+            buffer.flip();
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+            buffer.clear();
+        }
+
+        @Override
+        public void close() throws IOException {
+            try {
+                flush();
+            } finally {
+                channel.close();
+            }
+        }
+    }
+
+    /**
+     * Reader of the run; the current transition and its key (source << 32 | token) are in the fields
+     */
+    private static final class RunReader implements AutoCloseable {
+        private final FileChannel channel;
+        private final ByteBuffer buffer = ByteBuffer.allocateDirect(BUFFER_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+        private int source;
+        private int symbol;
+        private int destination;
+        private long key;
+
+        RunReader(Path path) throws IOException {
+            channel = FileChannel.open(path);
+            buffer.flip();
+        }
+
+        /**
+         * Read the next transition
+         *
+         * @return false - if the run is over; Otherwise, true
+         */
+        boolean next() throws IOException {
+            if (buffer.remaining() < 3 * Integer.BYTES) {
+                buffer.compact();
+                while (buffer.position() < 3 * Integer.BYTES && channel.read(buffer) > 0) {
+                    // Read until the whole transition is in the buffer or the end of the run
+                }
+                buffer.flip();
+                if (buffer.remaining() < 3 * Integer.BYTES) {
+                    return false;
+                }
+            }
+            source = buffer.getInt();
+            symbol = buffer.getInt();
+            destination = buffer.getInt();
+            key = (long) source << 32 | symbol;
+            return true;
+        }
+
+        @Override
+        public void close() throws IOException {
+            channel.close();
+        }
+    }
+}
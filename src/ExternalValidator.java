@@ -0,0 +1,295 @@
+import exceptions.DisjointStatesException;
+import exceptions.FsaException;
+import exceptions.LimitExceededException;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Set;
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * Validation of the FSA whose transitions do not fit into the memory. The input file is parsed as usual, but
+ * transitions are spilled to sorted runs on disk (see ExternalTransitions); only names, final states and a few
+ * arrays per state are kept in the memory.
+ * <ul>
+ * <li>One merge pass over transitions in the (source, token) order finds the determinism (a repeated token of
+ * the source) and the completeness (the number of distinct tokens of every source), unites states in the
+ * union-find for the connectivity and writes destinations grouped by the source to the temporary file.</li>
+ * <li>The reachability is the semi-external BFS: the offsets of the states, the queue and the visited states are
+ * in the memory, destinations are read from the mapped file.</li>
+ * </ul>
+ * Results are the same as by FsaValidator.
+ */
+public class ExternalValidator {
+    /**
+     * Number of transitions in one run, about 48 MiB
+     */
+    public static final int DEFAULT_RUN_SIZE = 1 << 21;
+    private static final int BUFFER_SIZE = 1 << 16;
+    private static final int CHUNK_SHIFT = 30;
+    private final Path directory;
+    private final int runSize;
+
+    /**
+     * @param directory directory of the temporary files
+     * @param runSize   number of transitions in one sorted run
+     * @throws IllegalArgumentException throws when runSize is less than 1
+     */
+    public ExternalValidator(Path directory, int runSize) {
+        if (runSize < 1) {
+            throw new IllegalArgumentException("Size of the run should be positive: " + runSize);
+        }
+        this.directory = directory;
+        this.runSize = runSize;
+    }
+
+    /**
+     * Validate the FSA from the file by the selected checks. Binary files are already compact, so they are
+     * validated as by FsaValidator
+     *
+     * @param input   path of the file in the format of the input file ("fsa.txt") or in the binary format
+     * @param metrics collected metrics or null
+     * @param checks  selected checks; only their answers are in the result
+     * @return result of the validation
+     * @throws IOException throws when file can not be read, temporary files can not be written or the final
+     *                     states do not fit into the memory
+     */
+    public ValidationResult validate(Path input, ValidationMetrics metrics, Set<ValidationCheck> checks)
+            throws IOException {
+        try (FileChannel channel = FileChannel.open(input)) {
+            if (AutomatonFile.isBinary(channel)) {
+                return FsaValidator.validate(channel, metrics, checks);
+            }
+        }
+
+        PhaseRecorder recorder = new PhaseRecorder(metrics);
+        try (FileChannel channel = FileChannel.open(input);
+             ExternalTransitions transitions = new ExternalTransitions(directory, runSize)) {
+            recorder.start();
+            FsaParser parser = new FsaParser(channel, ForkJoinPool.commonPool(), transitions);
+            Automaton automaton;
+            try {
+                automaton = parser.parse();
+            } catch (FsaException e) {
+                return ValidationResult.ofError(e);
+            } catch (LimitExceededException e) {
+                throw new IOException(e.getMessage(), e);
+            } finally {
+                recorder.finishParsing(parser);
+            }
+
+            try {
+                return ValidationResult.ofReport(validate(automaton, transitions, recorder, checks));
+            } catch (DisjointStatesException e) {
+                return ValidationResult.ofError(e);
+            }
+        }
+    }
+
+    /**
+     * Run the selected checks on the parsed FSA without transitions (names, initial and final states) and its
+     * transitions on disk
+     */
+    private ReportFormation validate(Automaton automaton, ExternalTransitions transitions, PhaseRecorder recorder,
+                                     Set<ValidationCheck> checks) throws IOException, DisjointStatesException {
+        ReportFormation report = new ReportFormation(checks);
+        Path targets = checks.contains(ValidationCheck.REACHABILITY)
+                ? Files.createTempFile(directory, "fsa-targets", ".bin") : null;
+        try {
+            recorder.start();
+            MergePass pass = new MergePass(automaton, checks, targets, transitions.getTransitionCount());
+            try {
+                transitions.merge(pass);
+            } finally {
+                pass.close();
+            }
+            recorder.finish(ValidationMetrics.Phase.TRANSITIONS, transitions.getTransitionCount());
+
+            if (checks.contains(ValidationCheck.DISJOINT) && pass.components.getSetsCount() > 1) {
+                throw new DisjointStatesException();
+            }
+            if (checks.contains(ValidationCheck.FINAL_STATES) && automaton.getFinalStateCount() == 0) {
+                report.markWarning(1);
+            }
+            if (targets != null) {
+                recorder.start();
+                int reachableCount = countReachableStates(automaton, pass.offsets, targets);
+                recorder.finish(ValidationMetrics.Phase.REACHABILITY, reachableCount);
+                recorder.countVisitedStates(reachableCount);
+                if (reachableCount != automaton.getStateCount()) {
+                    report.markWarning(2);
+                }
+            }
+            if (checks.contains(ValidationCheck.DETERMINISM) && !pass.isDeterministic) {
+                report.markWarning(3);
+            }
+            report.markCompleteness(checks.contains(ValidationCheck.COMPLETENESS) && pass.isComplete());
+            return report;
+        } finally {
+            if (targets != null) {
+                Files.deleteIfExists(targets);
+            }
+        }
+    }
+
+    /**
+     * Semi-external BFS from the initial state: every visited state reads its destinations from the file once
+     *
+     * @param offsets destinations of the state s are [offsets[s], offsets[s + 1]) in the file
+     * @param targets file of destinations grouped by the source
+     * @return number of states reachable from the initial state
+     */
+    private static int countReachableStates(Automaton automaton, long[] offsets, Path targets) throws IOException {
+        ByteBuffer[] chunks;
+        try (FileChannel channel = FileChannel.open(targets)) {
+            long size = channel.size();
+            chunks = new ByteBuffer[(int) ((size + (1L << CHUNK_SHIFT) - 1) >>> CHUNK_SHIFT)];
+            for (int i = 0; i < chunks.length; i++) {
+                long start = (long) i << CHUNK_SHIFT;
+                chunks[i] = channel.map(FileChannel.MapMode.READ_ONLY, start,
+                        Math.min(1L << CHUNK_SHIFT, size - start)).order(ByteOrder.LITTLE_ENDIAN);
+            }
+        }
+
+        int stateCount = automaton.getStateCount();
+        long[] visited = new long[(stateCount + 63) >>> 6];
+        // Every state is queued at most once, since it is marked before queueing
+        int[] queue = new int[stateCount];
+        int head = 0;
+        int tail = 0;
+        int initialState = automaton.getInitialState();
+        visited[initialState >>> 6] |= 1L << initialState;
+        queue[tail++] = initialState;
+        while (head < tail) {
+            int state = queue[head++];
+            for (long edge = offsets[state]; edge < offsets[state + 1]; edge++) {
+                long position = 4 * edge;
+                int target = chunks[(int) (position >>> CHUNK_SHIFT)]
+                        .getInt((int) (position & ((1L << CHUNK_SHIFT) - 1)));
+                if ((visited[target >>> 6] & 1L << target) == 0) {
+                    visited[target >>> 6] |= 1L << target;
+                    queue[tail++] = target;
+                }
+            }
+        }
+        return tail;
+    }
+
+    /**
+     * Consumer of the merged transitions in the (source, token) order
+     */
+    private static final class MergePass implements TransitionSink, AutoCloseable {
+        private final int stateCount;
+        private final int symbolCount;
+        private final UnionFind components;
+        /**
+         * Offsets of destinations of every state in the file or null, if the reachability is not checked;
+         * they are long, since the FSA on disk may have more than Integer.MAX_VALUE transitions
+         */
+        private final long[] offsets;
+        private final FileChannel targets;
+        private final ByteBuffer buffer;
+        private boolean isDeterministic = true;
+        /**
+         * Every state should have transitions by all tokens to be complete
+         */
+        private boolean isComplete;
+        private int previousSource = -1;
+        private int previousSymbol = -1;
+        private int distinctSymbolCount = 0;
+
+        MergePass(Automaton automaton, Set<ValidationCheck> checks, Path targets, long transitionCount)
+                throws IOException {
+            stateCount = automaton.getStateCount();
+            symbolCount = automaton.getSymbolCount();
+            isComplete = transitionCount >= (long) stateCount * symbolCount;
+            components = checks.contains(ValidationCheck.DISJOINT) ? new UnionFind(stateCount) : null;
+            if (targets != null) {
+                offsets = new long[stateCount + 1];
+                this.targets = FileChannel.open(targets, StandardOpenOption.WRITE);
+                buffer = ByteBuffer.allocateDirect(BUFFER_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+            } else {
+                offsets = null;
+                this.targets = null;
+                buffer = null;
+            }
+        }
+
+        @Override
+        public void addTransition(int source, int symbol, int destination) throws IOException {
+            if (source != previousSource) {
+                finishSource(source);
+                previousSource = source;
+                distinctSymbolCount = 1;
+            } else if (symbol == previousSymbol) {
+                isDeterministic = false;
+            } else {
+                distinctSymbolCount++;
+            }
+            previousSymbol = symbol;
+
+            if (components != null) {
+                components.union(source, destination);
+            }
+            if (offsets != null) {
+                offsets[source + 1]++;
+                if (!buffer.hasRemaining()) {
+                    flush();
+                }
+                buffer.putInt(destination);
+            }
+        }
+
+        @Override
+        public void addTransitions(int[] triples, int count) throws IOException {
+            for (int i = 0; i < count; i++) {
+                addTransition(triples[3 * i], triples[3 * i + 1], triples[3 * i + 2]);
+            }
+        }
+
+        /**
+         * Finish the tokens of the previous source; states between it and the next source have no transitions
+         */
+        private void finishSource(int nextSource) {
+            if (previousSource >= 0 && distinctSymbolCount != symbolCount || nextSource != previousSource + 1) {
+                isComplete = false;
+            }
+        }
+
+        boolean isComplete() {
+            return isComplete;
+        }
+
+        private void flush() throws IOException {
+            buffer.flip();
+            while (buffer.hasRemaining()) {
+                targets.write(buffer);
+            }
+            buffer.clear();
+        }
+
+        /**
+         * Finish the last source and the file of destinations
+         */
+        @Override
+        public void close() throws IOException {
+            finishSource(stateCount);
+            if (targets == null) {
+                return;
+            }
+            for (int state = 0; state < stateCount; state++) {
+                offsets[state + 1] += offsets[state];
+            }
+            try {
+                flush();
+            } finally {
+                targets.close();
+            }
+        }
+    }
+}
@@ -0,0 +1,540 @@
+import exceptions.*;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * Streaming parser of the input file ("fsa.txt"). Bytes of the input are read from the channel through
+ * the fixed buffer and walked only once; every parsed transition goes straight into the AutomatonBuilder.
+ * Therefore, peak memory does not depend on the length of the lines of the input file.
+ * <p>
+ * Large transitions sections of files are mapped into memory and parsed in parallel chunks
+ * (see ParallelTransitionsParser); the result and the reported error are the same as by the streaming parsing.
+ */
+public class FsaParser {
+    private static final int BUFFER_SIZE = 1 << 16;
+    private static final int END_OF_INPUT = -1;
+    private static final String STATES_PREFIX = "states=[";
+    private static final String ALPHA_PREFIX = "alpha=[";
+    private static final String INITIAL_STATE_PREFIX = "init.st=[";
+    private static final String FINAL_STATES_PREFIX = "fin.st=[";
+    private static final String TRANSITIONS_PREFIX = "trans=[";
+    /**
+     * Minimal size of the transitions section in bytes which is parsed in parallel
+     */
+    private static final long PARALLEL_THRESHOLD = 1 << 24;
+
+    private final ReadableByteChannel channel;
+    /**
+     * Content of the input which is already in the memory (e.g. mapped) and which is read by the channel, or null
+     */
+    private final ByteBuffer content;
+    private final ForkJoinPool pool;
+    private final ByteBuffer buffer = ByteBuffer.allocate(BUFFER_SIZE);
+    private final Checker checker = new Checker();
+    private final SymbolTable states = new SymbolTable();
+    private final SymbolTable alphabet = new SymbolTable();
+    private final AutomatonBuilder builder = new AutomatonBuilder(states, alphabet);
+    /**
+     * Destination of the parsed transitions: the builder or the sorted runs on disk
+     */
+    private final TransitionSink transitions;
+    /**
+     * Bytes of the last read name: the slice of the buffer or of tokenCopy, if the name crosses the end of the buffer
+     */
+    private byte[] token;
+    private int tokenStart;
+    private int tokenLength;
+    private byte[] tokenCopy = new byte[64];
+    /**
+     * Counters of the parsing for the metrics
+     */
+    private long bytesRead = 0;
+    private long readNanos = 0;
+    private long tokenCount = 0;
+
+    /**
+     * @param channel channel with the content of the input file
+     */
+    public FsaParser(ReadableByteChannel channel) {
+        this(channel, ForkJoinPool.commonPool());
+    }
+
+    /**
+     * @param channel channel with the content of the input file
+     * @param pool    pool which parses large transitions sections of files in parallel
+     */
+    public FsaParser(ReadableByteChannel channel, ForkJoinPool pool) {
+        this(channel, pool, null, null);
+    }
+
+    /**
+     * Parser of the content which is already in the memory; large transitions sections are parsed in parallel
+     * right in the content
+     *
+     * @param content content of the input file from the position to the limit; the position is moved by the parsing
+     * @param pool    pool which parses large transitions sections in parallel
+     */
+    FsaParser(ByteBuffer content, ForkJoinPool pool) {
+        this(new ContentChannel(content), pool, null, content);
+    }
+
+    /**
+     * Parser which passes transitions to the given sink instead of the FSA; the parsed FSA has no transitions
+     *
+     * @param channel     channel with the content of the input file
+     * @param pool        pool which parses large transitions sections of files in parallel
+     * @param transitions destination of the parsed transitions
+     */
+    FsaParser(ReadableByteChannel channel, ForkJoinPool pool, TransitionSink transitions) {
+        this(channel, pool, transitions, null);
+    }
+
+    /**
+     * @param transitions destination of the parsed transitions or null, if they are added to the FSA
+     * @param content     content which is read by the channel or null
+     */
+    private FsaParser(ReadableByteChannel channel, ForkJoinPool pool, TransitionSink transitions, ByteBuffer content) {
+        this.channel = channel;
+        this.content = content;
+        this.pool = pool;
+        this.transitions = transitions != null ? transitions : builder;
+        buffer.flip();
+    }
+
+    /**
+     * Parse the entire input. Parsing provided sequentially by task's conditions.
+     *
+     * @return parsed FSA
+     * @throws IOException                        throws when input can not be read
+     * @throws InputMalformedException            throws when input does not follow the format
+     * @throws InitialStateNotDefinedException    throws when initial state is empty
+     * @throws IncorrectStateException            throws when some state is not in the set of states
+     * @throws TransitionIsNotPresentedException  throws when some token is not in the alphabet
+     * @throws LimitExceededException             throws when transitions do not fit into the memory of the FSA
+     */
+    public Automaton parse() throws IOException, InputMalformedException, InitialStateNotDefinedException,
+            IncorrectStateException, TransitionIsNotPresentedException, LimitExceededException {
+        scanStates();
+        scanAlpha();
+        scanInitialState();
+        scanFinalStates();
+        scanTransitions();
+        return builder.build();
+    }
+
+    /**
+     * Parse entire set of all possible states
+     */
+    private void scanStates() throws IOException, InputMalformedException {
+        expect(STATES_PREFIX);
+
+        // If nothing was appeared
+        if (peek() == ']') {
+            throw new InputMalformedException();
+        }
+
+        int delimiter;
+        boolean isAfterEmptyEntry = false;
+        do {
+            delimiter = readName();
+            if (isEmptyEntry(delimiter)) {
+                isAfterEmptyEntry = true;
+                continue;
+            }
+            if (isAfterEmptyEntry || tokenLength == 0
+                    || !checker.isStateNameCorrect(token, tokenStart, tokenStart + tokenLength)) {
+                throw new InputMalformedException();
+            }
+            states.add(token, tokenStart, tokenLength);
+        } while (delimiter == ',');
+
+        expectEndOfList(delimiter);
+    }
+
+    /**
+     * Parse entire set of all possible transition tokens
+     */
+    private void scanAlpha() throws IOException, InputMalformedException {
+        expect(ALPHA_PREFIX);
+
+        // If nothing was appeared
+        if (peek() == ']') {
+            throw new InputMalformedException();
+        }
+
+        int delimiter;
+        boolean isAfterEmptyEntry = false;
+        do {
+            delimiter = readName();
+            if (isEmptyEntry(delimiter)) {
+                isAfterEmptyEntry = true;
+                continue;
+            }
+            if (isAfterEmptyEntry || tokenLength == 0
+                    || !checker.isTransitionNameCorrect(token, tokenStart, tokenStart + tokenLength)) {
+                throw new InputMalformedException();
+            }
+            alphabet.add(token, tokenStart, tokenLength);
+        } while (delimiter == ',');
+
+        expectEndOfList(delimiter);
+    }
+
+    /**
+     * Parse initial state of FSA
+     */
+    private void scanInitialState() throws IOException, InputMalformedException, InitialStateNotDefinedException,
+            IncorrectStateException {
+        expect(INITIAL_STATE_PREFIX);
+
+        // If nothing was appeared
+        if (peek() == ']') {
+            throw new InitialStateNotDefinedException();
+        }
+
+        int delimiter = readName();
+
+        // If more than one initial state
+        if (delimiter == ',') {
+            throw new InputMalformedException();
+        }
+
+        int initialState = getTokenId(states);
+
+        // If initialState not in the possible states set
+        if (initialState == SymbolTable.NOT_FOUND) {
+            throw new IncorrectStateException(tokenToString());
+        }
+
+        builder.setInitialState(initialState);
+        expectEndOfList(delimiter);
+    }
+
+    /**
+     * Parse entire set of all possible final states
+     */
+    private void scanFinalStates() throws IOException, InputMalformedException, IncorrectStateException {
+        expect(FINAL_STATES_PREFIX);
+
+        // If nothing was appeared
+        if (peek() == ']') {
+            expectEndOfList(read());
+            return;
+        }
+
+        int delimiter;
+        boolean isAfterEmptyEntry = false;
+        do {
+            delimiter = readName();
+            if (isEmptyEntry(delimiter)) {
+                isAfterEmptyEntry = true;
+                continue;
+            }
+            // If an empty entry is followed by a state, the empty one is not a state
+            if (isAfterEmptyEntry) {
+                throw new IncorrectStateException("");
+            }
+
+            int finalState = getTokenId(states);
+
+            // If particular state is not belong to the possible states set
+            if (finalState == SymbolTable.NOT_FOUND) {
+                throw new IncorrectStateException(tokenToString());
+            }
+
+            builder.addFinalState(finalState);
+        } while (delimiter == ',');
+
+        expectEndOfList(delimiter);
+    }
+
+    /**
+     * Parse the entire set of all possible transitions. Every transition state_1>token>state_2 is passed
+     * to the sink as triple of ids
+     */
+    private void scanTransitions() throws IOException, InputMalformedException, IncorrectStateException,
+            TransitionIsNotPresentedException {
+        expect(TRANSITIONS_PREFIX);
+
+        // If nothing was appeared
+        if (peek() == ']') {
+            expectEndOfList(read());
+            return;
+        }
+
+        if (isParallelParsingUseful()) {
+            ParallelTransitionsParser parser = new ParallelTransitionsParser(takeRest(), states, alphabet, pool);
+            try {
+                parser.parse(transitions);
+            } finally {
+                tokenCount += parser.getTokenCount();
+            }
+            return;
+        }
+
+        int delimiter;
+        boolean isAfterEmptyEntry = false;
+        do {
+            delimiter = readName();
+            if (isEmptyEntry(delimiter)) {
+                isAfterEmptyEntry = true;
+                continue;
+            }
+            // If an empty entry is followed by a transition, the empty one has no source state
+            if (isAfterEmptyEntry) {
+                throw new IncorrectStateException("");
+            }
+
+            int sourceState = getTokenId(states);
+            // If state_source from transition does not belong set of possible states
+            if (sourceState == SymbolTable.NOT_FOUND) {
+                throw new IncorrectStateException(tokenToString());
+            }
+            expectSeparator(delimiter);
+
+            delimiter = readName();
+            int transition = getTokenId(alphabet);
+            // If transition token from transition does not belong set of possible transitions
+            if (transition == SymbolTable.NOT_FOUND) {
+                throw new TransitionIsNotPresentedException(tokenToString());
+            }
+            expectSeparator(delimiter);
+
+            delimiter = readName();
+            int destState = getTokenId(states);
+            // If state_dest from transition does not belong set of possible states
+            if (destState == SymbolTable.NOT_FOUND) {
+                throw new IncorrectStateException(tokenToString());
+            }
+
+            transitions.addTransition(sourceState, transition, destState);
+        } while (delimiter == ',');
+
+        expectEndOfList(delimiter);
+    }
+
+    /**
+     * Check if the rest of the input is a large file which can be mapped and parsed in parallel
+     *
+     * @return true - if the parallel parsing is useful; Otherwise, false
+     */
+    private boolean isParallelParsingUseful() throws IOException {
+        if (pool.getParallelism() < 2) {
+            return false;
+        }
+        long rest;
+        if (content != null) {
+            rest = content.remaining() + buffer.remaining();
+        } else if (channel instanceof FileChannel file) {
+            rest = file.size() - file.position() + buffer.remaining();
+        } else {
+            return false;
+        }
+        return rest >= PARALLEL_THRESHOLD && rest <= Integer.MAX_VALUE;
+    }
+
+    /**
+     * Take the rest of the input from the current position of the parsing as one buffer: the slice of the content
+     * or the mapped rest of the file
+     *
+     * @return bytes from the current position to the end of the input
+     */
+    private ByteBuffer takeRest() throws IOException {
+        if (content != null) {
+            int start = content.position() - buffer.remaining();
+            bytesRead += content.remaining();
+            ByteBuffer rest = content.slice(start, content.limit() - start);
+            content.position(content.limit());
+            return rest;
+        }
+        FileChannel file = (FileChannel) channel;
+        long start = file.position() - buffer.remaining();
+        bytesRead += file.size() - file.position();
+        return file.map(FileChannel.MapMode.READ_ONLY, start, file.size() - start);
+    }
+
+    /**
+     * Read the name until one of the delimiters: ',', '>', ']' or end of line. Usually the name is the slice
+     * of the buffer; only the name which crosses the end of the buffer is copied
+     *
+     * @return delimiter which was read after the name
+     */
+    private int readName() throws IOException {
+        tokenCount++;
+        byte[] data = buffer.array();
+        int start = buffer.position();
+        for (int i = start; i < buffer.limit(); i++) {
+            if (isDelimiter(data[i])) {
+                token = data;
+                tokenStart = start;
+                tokenLength = i - start;
+                buffer.position(i + 1);
+                return data[i];
+            }
+        }
+
+        tokenLength = 0;
+        int c = read();
+        while (c != END_OF_INPUT && !isDelimiter((byte) c)) {
+            if (tokenLength == tokenCopy.length) {
+                tokenCopy = Arrays.copyOf(tokenCopy, 2 * tokenCopy.length);
+            }
+            tokenCopy[tokenLength++] = (byte) c;
+            c = read();
+        }
+        token = tokenCopy;
+        tokenStart = 0;
+        return c;
+    }
+
+    /**
+     * Check if the last read name is an empty entry of the list: "a,]", "a,,]" or "[,]". Empty entries are
+     * allowed only at the end of the list, as in the original format
+     *
+     * @return true - if the name is empty and it is followed by ',' or ']'; Otherwise, false
+     */
+    private boolean isEmptyEntry(int delimiter) {
+        return tokenLength == 0 && (delimiter == ',' || delimiter == ']');
+    }
+
+    private static boolean isDelimiter(byte c) {
+        return c == ',' || c == '>' || c == ']' || c == '\n';
+    }
+
+    private int getTokenId(SymbolTable table) {
+        return table.getId(token, tokenStart, tokenLength);
+    }
+
+    private String tokenToString() {
+        return new String(token, tokenStart, tokenLength, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Check that the input continues with the given prefix of the line
+     */
+    private void expect(String prefix) throws IOException, InputMalformedException {
+        for (int i = 0; i < prefix.length(); i++) {
+            if (read() != prefix.charAt(i)) {
+                throw new InputMalformedException();
+            }
+        }
+    }
+
+    /**
+     * Check that the transition continues with the separator '>'
+     */
+    private void expectSeparator(int delimiter) throws InputMalformedException {
+        if (delimiter != '>') {
+            throw new InputMalformedException();
+        }
+    }
+
+    /**
+     * Check that the list was closed by ']' and it is the end of the line
+     */
+    private void expectEndOfList(int delimiter) throws IOException, InputMalformedException {
+        if (delimiter != ']') {
+            throw new InputMalformedException();
+        }
+
+        int c = read();
+        if (c == '\r') {
+            c = read();
+        }
+        if (c != '\n' && c != END_OF_INPUT) {
+            throw new InputMalformedException();
+        }
+    }
+
+    private int read() throws IOException {
+        if (!buffer.hasRemaining() && !fill()) {
+            return END_OF_INPUT;
+        }
+        return buffer.get() & 0xFF;
+    }
+
+    private int peek() throws IOException {
+        if (!buffer.hasRemaining() && !fill()) {
+            return END_OF_INPUT;
+        }
+        return buffer.get(buffer.position()) & 0xFF;
+    }
+
+    /**
+     * Read the next portion of the input into the buffer
+     *
+     * @return false - if the end of the input is reached; Otherwise, true
+     */
+    private boolean fill() throws IOException {
+        buffer.clear();
+        long start = System.nanoTime();
+        int read = 0;
+        while (read == 0) {
+            read = channel.read(buffer);
+        }
+        readNanos += System.nanoTime() - start;
+        buffer.flip();
+        if (read > 0) {
+            bytesRead += read;
+        }
+        return read > 0;
+    }
+
+    /**
+     * Channel which reads the content from the memory
+     */
+    private static class ContentChannel implements ReadableByteChannel {
+        private final ByteBuffer content;
+
+        private ContentChannel(ByteBuffer content) {
+            this.content = content;
+        }
+
+        @Override
+        public int read(ByteBuffer destination) {
+            if (!content.hasRemaining()) {
+                return END_OF_INPUT;
+            }
+            int count = Math.min(content.remaining(), destination.remaining());
+            destination.put(content.slice(content.position(), count));
+            content.position(content.position() + count);
+            return count;
+        }
+
+        @Override
+        public boolean isOpen() {
+            return true;
+        }
+
+        @Override
+        public void close() {
+        }
+    }
+
+    /**
+     * @return number of bytes read from the channel (or mapped) so far
+     */
+    public long getBytesRead() {
+        return bytesRead;
+    }
+
+    /**
+     * @return time spent reading the channel so far
+     */
+    public long getReadNanos() {
+        return readNanos;
+    }
+
+    /**
+     * @return number of names read so far
+     */
+    public long getTokenCount() {
+        return tokenCount;
+    }
+}
@@ -0,0 +1,271 @@
+import exceptions.FsaException;
+import exceptions.LimitExceededException;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.charset.CharsetEncoder;
+import java.nio.charset.CoderResult;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.Set;
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * Public API of the FSA validator. Every call is independent and does not terminate the process,
+ * so the validator can be embedded and called from many threads at once
+ */
+public final class FsaValidator {
+    private FsaValidator() {
+    }
+
+    /**
+     * Validate the FSA from the channel
+     *
+     * @param channel channel with the content in the format of the input file ("fsa.txt") or the file in the
+     *                binary format (see AutomatonFile)
+     * @return result of the validation
+     * @throws IOException throws when input can not be read or the FSA does not fit into the memory
+     */
+    public static ValidationResult validate(ReadableByteChannel channel) throws IOException {
+        return validate(channel, null);
+    }
+
+    /**
+     * Validate the FSA from the channel and add time and counters of every phase to the metrics
+     *
+     * @param channel channel with the content in the format of the input file ("fsa.txt") or the file in the
+     *                binary format (see AutomatonFile)
+     * @param metrics collected metrics or null
+     * @return result of the validation
+     * @throws IOException throws when input can not be read or the FSA does not fit into the memory
+     */
+    public static ValidationResult validate(ReadableByteChannel channel, ValidationMetrics metrics)
+            throws IOException {
+        return validate(channel, metrics, ValidationCheck.ALL);
+    }
+
+    /**
+     * Validate the FSA from the channel by the selected checks only
+     *
+     * @param channel channel with the content in the format of the input file ("fsa.txt") or the file in the
+     *                binary format (see AutomatonFile)
+     * @param metrics collected metrics or null
+     * @param checks  selected checks; only their answers are in the result
+     * @return result of the validation
+     * @throws IOException throws when input can not be read or the FSA does not fit into the memory
+     */
+    public static ValidationResult validate(ReadableByteChannel channel, ValidationMetrics metrics,
+                                            Set<ValidationCheck> checks) throws IOException {
+        if (channel instanceof FileChannel file && file.position() == 0 && AutomatonFile.isBinary(file)) {
+            PhaseRecorder recorder = new PhaseRecorder(metrics);
+            recorder.start();
+            if (file.size() > Integer.MAX_VALUE) {
+                // Too large to be mapped by one buffer
+                try (OffHeapAutomaton automaton = OffHeapAutomaton.load(file)) {
+                    recorder.finishLoading(file.size());
+                    return validate(automaton, recorder, checks);
+                }
+            }
+            Automaton automaton = AutomatonFile.map(file);
+            recorder.finishLoading(file.size());
+            return validate(automaton, recorder, checks);
+        }
+
+        PhaseRecorder recorder = new PhaseRecorder(metrics);
+        recorder.start();
+        return parse(new FsaParser(channel), recorder, checks);
+    }
+
+    /**
+     * Validate the FSA from the content which is already in the memory, e.g. the mapped file hashed by ResultCache,
+     * so exactly the hashed bytes are validated
+     *
+     * @param content content in the format of the input file ("fsa.txt") or in the binary format
+     * @param metrics collected metrics or null
+     * @param checks  selected checks; only their answers are in the result
+     * @return result of the validation
+     * @throws IOException throws when the binary content is not correct or the FSA does not fit into the memory
+     */
+    static ValidationResult validate(ByteBuffer content, ValidationMetrics metrics, Set<ValidationCheck> checks)
+            throws IOException {
+        PhaseRecorder recorder = new PhaseRecorder(metrics);
+        recorder.start();
+        if (AutomatonFile.isBinary(content)) {
+            Automaton automaton = AutomatonFile.map(content);
+            recorder.finishLoading(content.remaining());
+            return validate(automaton, recorder, checks);
+        }
+        return parse(new FsaParser(content, ForkJoinPool.commonPool()), recorder, checks);
+    }
+
+    private static ValidationResult parse(FsaParser parser, PhaseRecorder recorder, Set<ValidationCheck> checks)
+            throws IOException {
+        Automaton automaton;
+        try {
+            automaton = parser.parse();
+        } catch (FsaException e) {
+            return ValidationResult.ofError(e);
+        } catch (LimitExceededException e) {
+            // The FSA does not fit into the arrays of the memory; ExternalValidator validates such FSA
+            throw new IOException(e.getMessage(), e);
+        } finally {
+            recorder.finishParsing(parser);
+        }
+        return validate(automaton, recorder, checks);
+    }
+
+    /**
+     * Validate the already parsed or loaded FSA, e.g. the FSA from AutomatonFile.map()
+     *
+     * @param automaton parsed FSA
+     * @return result of the validation
+     */
+    public static ValidationResult validate(Automaton automaton) {
+        return validate(automaton, ValidationCheck.ALL);
+    }
+
+    /**
+     * Validate the already parsed or loaded FSA by the selected checks only
+     *
+     * @param automaton parsed FSA
+     * @param checks    selected checks; only their answers are in the result
+     * @return result of the validation
+     */
+    public static ValidationResult validate(Automaton automaton, Set<ValidationCheck> checks) {
+        return validate(automaton, new PhaseRecorder(null), checks);
+    }
+
+    private static ValidationResult validate(Automaton automaton, PhaseRecorder recorder,
+                                             Set<ValidationCheck> checks) {
+        recorder.countAutomaton(automaton);
+        try {
+            Validation validation = new Validation(automaton, recorder, checks);
+            validation.checkDisjoint();
+            return ValidationResult.ofReport(validation.makeReport());
+        } catch (FsaException e) {
+            return ValidationResult.ofError(e);
+        }
+    }
+
+    /**
+     * Validate the FSA from the file
+     *
+     * @param path path of the file in the format of the input file ("fsa.txt") or in the binary format
+     * @return result of the validation
+     * @throws IOException throws when file does not exist, can not be read or the FSA does not fit into the memory
+     */
+    public static ValidationResult validate(Path path) throws IOException {
+        return validate(path, null);
+    }
+
+    /**
+     * Validate the FSA from the file and add time and counters of every phase to the metrics
+     *
+     * @param path    path of the file in the format of the input file ("fsa.txt") or in the binary format
+     * @param metrics collected metrics or null
+     * @return result of the validation
+     * @throws IOException throws when file does not exist, can not be read or the FSA does not fit into the memory
+     */
+    public static ValidationResult validate(Path path, ValidationMetrics metrics) throws IOException {
+        return validate(path, metrics, ValidationCheck.ALL);
+    }
+
+    /**
+     * Validate the FSA from the file by the selected checks only
+     *
+     * @param path    path of the file in the format of the input file ("fsa.txt") or in the binary format
+     * @param metrics collected metrics or null
+     * @param checks  selected checks; only their answers are in the result
+     * @return result of the validation
+     * @throws IOException throws when file does not exist, can not be read or the FSA does not fit into the memory
+     */
+    public static ValidationResult validate(Path path, ValidationMetrics metrics, Set<ValidationCheck> checks)
+            throws IOException {
+        try (FileChannel channel = FileChannel.open(path)) {
+            return validate(channel, metrics, checks);
+        }
+    }
+
+    /**
+     * Validate the FSA from the reader. Characters are encoded to UTF-8 on the fly
+     *
+     * @param reader reader of the content in the format of the input file ("fsa.txt")
+     * @return result of the validation
+     * @throws IOException throws when reader fails
+     */
+    public static ValidationResult validate(Reader reader) throws IOException {
+        return validate(new ReaderChannel(reader));
+    }
+
+    /**
+     * Validate the FSA from the content
+     *
+     * @param content content in the format of the input file ("fsa.txt")
+     * @return result of the validation
+     */
+    public static ValidationResult validate(CharSequence content) {
+        byte[] bytes = content.toString().getBytes(StandardCharsets.UTF_8);
+        try {
+            return validate(Channels.newChannel(new ByteArrayInputStream(bytes)));
+        } catch (IOException e) {
+            // Reading from the array never fails
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * Channel which encodes characters of the reader to UTF-8 bytes
+     */
+    private static class ReaderChannel implements ReadableByteChannel {
+        private final Reader reader;
+        private final CharsetEncoder encoder = StandardCharsets.UTF_8.newEncoder();
+        private final CharBuffer chars = CharBuffer.allocate(8192);
+        private boolean isEndOfInput = false;
+        private boolean isOpen = true;
+
+        ReaderChannel(Reader reader) {
+            this.reader = reader;
+            chars.flip();
+        }
+
+        @Override
+        public int read(ByteBuffer destination) throws IOException {
+            int start = destination.position();
+            while (true) {
+                CoderResult result = encoder.encode(chars, destination, isEndOfInput);
+                if (result.isError()) {
+                    result.throwException();
+                }
+
+                int read = destination.position() - start;
+                if (read > 0 || result.isOverflow()) {
+                    return read;
+                }
+                if (isEndOfInput) {
+                    return -1;
+                }
+
+                // Keep the unfinished surrogate pair at the beginning of the buffer
+                chars.compact();
+                isEndOfInput = reader.read(chars) == -1;
+                chars.flip();
+            }
+        }
+
+        @Override
+        public boolean isOpen() {
+            return isOpen;
+        }
+
+        @Override
+        public void close() {
+            isOpen = false;
+        }
+    }
+}
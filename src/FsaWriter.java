@@ -0,0 +1,57 @@
+import java.io.IOException;
+import java.io.Writer;
+
+/**
+ * Writer of the FSA in the format of the input file ("fsa.txt"), so the written FSA can be validated again
+ */
+public final class FsaWriter {
+    private FsaWriter() {
+    }
+
+    /**
+     * Write all lines of the FSA: states, alphabet, initial state, final states and transitions
+     *
+     * @param automaton FSA with correct names of states and transition tokens
+     * @param writer    destination of the text, it is not closed
+     * @throws IOException throws when writer fails
+     */
+    public static void write(Automaton automaton, Writer writer) throws IOException {
+        writer.write("states=[");
+        for (int state = 0; state < automaton.getStateCount(); state++) {
+            writer.write(state == 0 ? "" : ",");
+            writer.write(automaton.getStateName(state));
+        }
+
+        writer.write("]\nalpha=[");
+        for (int symbol = 0; symbol < automaton.getSymbolCount(); symbol++) {
+            writer.write(symbol == 0 ? "" : ",");
+            writer.write(automaton.getSymbolName(symbol));
+        }
+
+        writer.write("]\ninit.st=[");
+        if (automaton.getInitialState() != Automaton.NO_STATE) {
+            writer.write(automaton.getStateName(automaton.getInitialState()));
+        }
+
+        writer.write("]\nfin.st=[");
+        for (int i = 0; i < automaton.getFinalStateCount(); i++) {
+            writer.write(i == 0 ? "" : ",");
+            writer.write(automaton.getStateName(automaton.getFinalState(i)));
+        }
+
+        writer.write("]\ntrans=[");
+        boolean isFirst = true;
+        for (int state = 0; state < automaton.getStateCount(); state++) {
+            for (int edge = automaton.getOutStart(state); edge < automaton.getOutEnd(state); edge++) {
+                writer.write(isFirst ? "" : ",");
+                writer.write(automaton.getStateName(state));
+                writer.write('>');
+                writer.write(automaton.getSymbolName(automaton.getLabel(edge)));
+                writer.write('>');
+                writer.write(automaton.getStateName(automaton.getTarget(edge)));
+                isFirst = false;
+            }
+        }
+        writer.write("]\n");
+    }
+}
@@ -9,14 +9,24 @@
  * Data stores and outputs in the files' fsa.txt and result.txt.
  */
 
-import exceptions.*;
+import exceptions.FsaException;
+import exceptions.LimitExceededException;
 
-import java.io.FileWriter;
-import java.io.FileReader;
 import java.io.BufferedReader;
+import java.io.FileWriter;
 import java.io.BufferedWriter;
 import java.io.IOException;
-import java.util.ArrayList;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.EnumSet;
+import java.util.Set;
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.Stream;
 
 /**
  * The Main class of the program with the general functionality.
@@ -25,383 +35,515 @@ import java.util.ArrayList;
  * @version 1.0.0 10 March 2023
  */
 public class Main {
+    private static final int DEFAULT_CACHE_CAPACITY = 10_000;
     /**
-     * Scanner from input file ("fsa.txt")
-     */
-    private static BufferedReader reader = null;
-    /**
-     * Writer for output file ("result.txt")
-     */
-    private static BufferedWriter writer = null;
-    /**
-     * The static variable which provides the most general and complicated tests for FSA validation
-     */
-    private static final Checker CHECKER = new Checker();
-    /**
-     * The static variable which provides a finished report of the FSA validation if there are no runtime errors
-     */
-    private static final ReportFormation REPORT = new ReportFormation();
-    /**
-     * Array of possible states in FSA.
-     */
-    private static final ArrayList<State> STATES = new ArrayList<>();
-    /**
-     * Array of possible transition token in FSA.
-     */
-    private static final ArrayList<Transition> ALPHA = new ArrayList<>();
-    /**
-     * An initial state of FSA. In this particular case, according to the task, only one initial state is allowed.
+     * Number of words which are read and run at once by "--accept"
      */
-    private static State initialState = null;
-    /**
-     * Array of possible final states in FSA.
-     */
-    private static final ArrayList<State> FINAL_STATES = new ArrayList<>();
+    private static final int ACCEPT_BLOCK_SIZE = 1 << 16;
+    private static final String USAGE = """
+            Usage:
+              java Main [--checks <list>] [metrics options]
+                                             validate "fsa.txt" and write "result.txt"
+              java Main --external [--temp-dir <directory>] [--run-size <n>] [--checks <list>] [metrics options]
+                                             the same, but transitions are kept in sorted runs of n transitions
+                                             on disk, so the FSA may be larger than the memory
+              java Main --batch <directory|manifest> [--threads <n>] [--output <results.jsonl>] [--checks <list>]
+                        [cache options] [metrics options]
+                                             validate many files; without --output the result of every
+                                             "name.txt" is written to "name.result.txt"
+              java Main --server [--port <n> | --stdio] [--threads <n>] [--checks <list>] [cache options]
+                        [metrics options]
+                                             keep the validator running; every request is a line with the path
+                                             of the input file, every response is the result and an empty line
+              java Main --client [--port <n>]
+                                             the same as "java Main", but through the running server
+              java Main --convert <fsa.txt> <fsa.bin>
+                                             convert the input file to the binary format; binary files are
+                                             accepted everywhere instead of the input files
+              java Main --determinize <fsa.txt|fsa.bin> <dfa.txt> [--max-states <n>] [--max-memory <bytes>]
+                                             write the deterministic FSA accepting the same words
+              java Main --minimize <fsa.txt|fsa.bin> <min.txt> [--mapping <mapping.txt>]
+                                             write the minimal FSA of the complete deterministic FSA and the
+                                             state of the minimal FSA of every original state (to stdout
+                                             without --mapping)
+              java Main --analyze <fsa.txt|fsa.bin> [--output <report.txt>]
+                                             write the unreachable states, the states which can not reach any
+                                             final state and the strongly connected components
+              java Main --accept <fsa.txt|fsa.bin> <words.txt> [--output <results.txt>]
+                                             run every word (a line of transition tokens separated by spaces)
+                                             and write the final state of the accepted word or "rejected"
+            Checks:
+              --checks <list>                run only the listed checks separated by commas: disjoint,
+                                             final_states, reachability, determinism, completeness;
+                                             only their answers are written (errors of the input are always)
+            Cache options:
+              --cache <n>                    keep results of n last inputs in memory, unchanged inputs are not
+                                             validated again
+              --cache-dir <directory>        keep results also on disk
+              --cache-dir-size <bytes>       maximum size of the results on disk, the least recently used are
+                                             deleted first (default 256 MiB)
+            Metrics options:
+              --metrics <json|prometheus>    collect time, allocated bytes and counters of every phase; they are
+                                             written at the end of the run and returned by the server on the
+                                             request ":metrics"
+              --metrics-output <file>        write metrics to the file instead of stderr
+            """;
 
     /**
-     * The main method provide something like "collection" of the major methods of the entire program
+     * The main method validates the input file ("fsa.txt") through the FsaValidator and writes the result.
+     * Other modes are selected by the arguments
      *
      * @param args canonical parameter for java entry point
-     * @throws IOException throws when input file ("fsa.txt") does not exist
+     * @throws IOException          throws when input file ("fsa.txt") does not exist
+     * @throws InterruptedException throws when the batch validation is interrupted
      */
-    public static void main(String[] args) throws IOException {
-        scanFiles();
-
-        makeFormattedInput();
+    public static void main(String[] args) throws IOException, InterruptedException {
+        if (args.length == 0 || args[0].equals("--checks") || args[0].startsWith("--metrics")
+                || args[0].equals("--external")) {
+            ValidationMetrics metrics = createMetrics(args);
+            ValidationResult result;
+            if (Arrays.asList(args).contains("--external")) {
+                result = createExternalValidator(args).validate(Path.of("fsa.txt"), metrics, createChecks(args));
+            } else {
+                result = FsaValidator.validate(Path.of("fsa.txt"), metrics, createChecks(args));
+            }
 
-        // Checking FSA for disjoint
-        try {
-            if (CHECKER.isDisjoint(STATES, initialState)) {
-                throw new DisjointStatesException();
+            try (BufferedWriter writer = new BufferedWriter(new FileWriter("result.txt"))) {
+                writer.write(result.toString());
             }
-        } catch (DisjointStatesException e) {
-            writer.write(e.toString());
-            reader.close();
-            writer.close();
-            System.exit(0);
+            writeMetrics(metrics, args);
+            return;
         }
 
-        // Complete a report
-        markWarnings();
-        REPORT.markCompleteness(CHECKER.isComplete(STATES, ALPHA));
-
-        writer.write(REPORT.toString());
-
-        reader.close();
-        writer.close();
+        if (args[0].equals("--batch") && args.length >= 2) {
+            runBatch(args);
+        } else if (args[0].equals("--server")) {
+            runServer(args);
+        } else if (args[0].equals("--convert") && args.length == 3) {
+            convert(Path.of(args[1]), Path.of(args[2]));
+        } else if (args[0].equals("--determinize") && args.length >= 3) {
+            determinize(args);
+        } else if (args[0].equals("--minimize") && args.length >= 3) {
+            minimize(args);
+        } else if (args[0].equals("--analyze") && args.length >= 2) {
+            analyze(args);
+        } else if (args[0].equals("--accept") && args.length >= 3) {
+            accept(args);
+        } else if (args[0].equals("--client")) {
+            int port = Integer.parseInt(getOption(args, "--port", String.valueOf(ValidationServer.DEFAULT_PORT)));
+            String result = new ValidationClient(port).validate(Path.of("fsa.txt"));
+
+            try (BufferedWriter writer = new BufferedWriter(new FileWriter("result.txt"))) {
+                writer.write(result);
+            }
+        } else {
+            System.err.print(USAGE);
+            System.exit(1);
+        }
     }
 
     /**
-     * Scan files input ("fsa.txt") and output ("result.txt"). Output file will be created again
+     * Validate all files from the directory or manifest given in the arguments
      *
-     * @throws IOException throws when input file ("fsa.txt") does not exist
+     * @param args arguments of the program
      */
-    private static void scanFiles() throws IOException {
-        try {
-            reader = new BufferedReader(new FileReader("fsa.txt"));
-            writer = new BufferedWriter(new FileWriter("result.txt"));
-        } catch (IOException e) {
-            writer.write(e.toString());
-            reader.close();
-            writer.close();
-            System.exit(0);
+    private static void runBatch(String[] args) throws IOException, InterruptedException {
+        int threads = Integer.parseInt(getOption(args, "--threads",
+                String.valueOf(Runtime.getRuntime().availableProcessors())));
+        String output = getOption(args, "--output", null);
+
+        try (Stream<Path> inputs = BatchValidator.findInputs(Path.of(args[1]));
+             BufferedWriter writer = output == null ? null : Files.newBufferedWriter(Path.of(output))) {
+            ResultCache cache = createCache(args);
+            ValidationMetrics metrics = createMetrics(args);
+            BatchValidator batch = new BatchValidator(threads, writer, cache, metrics, createChecks(args));
+            batch.validate(inputs);
+            System.out.println("Validated: " + batch.getValidatedCount() + ", failed: " + batch.getFailedCount());
+            if (cache != null) {
+                System.out.println(cache);
+            }
+            writeMetrics(metrics, args);
         }
     }
 
     /**
-     * Parse entire set of all possible states
+     * Serve validation requests on the local socket or on stdin/stdout
      *
-     * @throws IOException throws when input file ("fsa.txt") does not exist
+     * @param args arguments of the program
      */
-    private static void scanStates() throws IOException {
-        try {
-            String tempString = reader.readLine();
-            String[] stateNames = tempString.substring(8, tempString.length() - 1).split(",");
-
-            // If nothing was appeared
-            if (tempString.substring(8, tempString.length() - 1).length() == 0) {
-                throw new InputMalformedException();
-            }
-
-            for (String stateName : stateNames) {
-                if (!CHECKER.isStateNameCorrect(stateName)) {
-                    throw new InputMalformedException();
-                }
-
-                STATES.add(new State(stateName));
-            }
-
-        } catch (IOException | InputMalformedException e) {
-            writer.write(e.toString());
-            reader.close();
-            writer.close();
-            System.exit(0);
+    private static void runServer(String[] args) throws IOException, InterruptedException {
+        int threads = Integer.parseInt(getOption(args, "--threads",
+                String.valueOf(Runtime.getRuntime().availableProcessors())));
+        ValidationMetrics metrics = createMetrics(args);
+        ValidationServer server = new ValidationServer(threads, createCache(args), metrics, createChecks(args));
+
+        if (Arrays.asList(args).contains("--stdio")) {
+            server.serve(new BufferedReader(new InputStreamReader(System.in, StandardCharsets.UTF_8)),
+                    new BufferedWriter(new OutputStreamWriter(System.out, StandardCharsets.UTF_8)));
+            server.shutdown();
+            writeMetrics(metrics, args);
+        } else {
+            server.listen(Integer.parseInt(getOption(args, "--port", String.valueOf(ValidationServer.DEFAULT_PORT))));
         }
     }
 
     /**
-     * Parse entire set of all possible transition tokens
+     * Convert the input file to the binary format. If the input is not correct, its error is printed
      *
-     * @throws IOException throws when input file ("fsa.txt") does not exist
+     * @param input  input file in the format of "fsa.txt"
+     * @param output binary file
      */
-    private static void scanAlpha() throws IOException {
-        try {
-            String tempString = reader.readLine();
-            String[] transitionNames = tempString.substring(7, tempString.length() - 1).split(",");
-
-            // If nothing was appeared
-            if (tempString.substring(7, tempString.length() - 1).length() == 0) {
-                throw new InputMalformedException();
-            }
-
-            for (String transitionName : transitionNames) {
-                if (!CHECKER.isTransitionNameCorrect(transitionName)) {
-                    throw new InputMalformedException();
-                }
-
-                ALPHA.add(new Transition(transitionName));
-            }
-
-        } catch (IOException | InputMalformedException e) {
-            writer.write(e.toString());
-            reader.close();
-            writer.close();
-            System.exit(0);
+    private static void convert(Path input, Path output) throws IOException {
+        try (FileChannel channel = FileChannel.open(input)) {
+            AutomatonFile.write(new FsaParser(channel).parse(), output);
+        } catch (FsaException | LimitExceededException e) {
+            System.err.print(e);
+            System.exit(1);
         }
     }
 
     /**
-     * Parse initial state of FSA
+     * Determinize the FSA from the input file and write the result in the format of the input file.
+     * If the input is not correct or the result exceeds the limits, the error is printed
      *
-     * @throws IOException throws when input file ("fsa.txt") does not exist
+     * @param args arguments of the program
      */
-    private static void scanInitialState() throws IOException {
-        try {
-            String stateName = reader.readLine();
-            stateName = stateName.substring(9, stateName.length() - 1);
-            String[] tempString = stateName.split(",");
+    private static void determinize(String[] args) throws IOException {
+        int maxStates = Integer.parseInt(getOption(args, "--max-states", String.valueOf(Integer.MAX_VALUE - 1)));
+        long maxMemory = Long.parseLong(getOption(args, "--max-memory",
+                String.valueOf(Runtime.getRuntime().maxMemory() / 2)));
 
-            // If nothing was appeared
-            if (stateName.length() == 0) {
-                throw new InitialStateNotDefinedException();
-            }
-
-            // If more than one initial state
-            if (tempString.length > 1) {
-                throw new InputMalformedException();
+        try {
+            Automaton deterministic;
+            try (LoadedAutomaton loaded = load(Path.of(args[1]))) {
+                deterministic = new Determinizer(loaded.automaton(), maxStates, maxMemory).determinize();
             }
 
-            initialState = getState(stateName);
-
-            // If initialState not in the possible states set
-            if (initialState == null) {
-                throw new IncorrectStateException(stateName);
+            try (BufferedWriter writer = Files.newBufferedWriter(Path.of(args[2]))) {
+                FsaWriter.write(deterministic, writer);
             }
-
-        } catch (IOException | InputMalformedException | InitialStateNotDefinedException | IncorrectStateException e) {
-            writer.write(e.toString());
-            reader.close();
-            writer.close();
-            System.exit(0);
+        } catch (FsaException | LimitExceededException e) {
+            System.err.print(e);
+            System.exit(1);
         }
     }
 
     /**
-     * Parse entire set of all possible final states
+     * Minimize the FSA from the input file and write the result in the format of the input file with the mapping
+     * of the states. If the input is not correct or it is not complete and deterministic, its result of the
+     * validation is printed
      *
-     * @throws IOException throws when input file ("fsa.txt") does not exist
+     * @param args arguments of the program
      */
-    private static void scanFinalStates() throws IOException {
+    private static void minimize(String[] args) throws IOException {
+        LoadedAutomaton loaded;
         try {
-            String tempString = reader.readLine();
-            String[] stateNames = tempString.substring(8, tempString.length() - 1).split(",");
+            loaded = load(Path.of(args[1]));
+        } catch (FsaException | LimitExceededException e) {
+            System.err.print(e);
+            System.exit(1);
+            return;
+        }
 
-            // If nothing was appeared
-            if (tempString.substring(8, tempString.length() - 1).length() == 0) {
-                return;
+        try (loaded) {
+            Automaton automaton = loaded.automaton();
+            ValidationResult result = FsaValidator.validate(automaton, EnumSet.of(ValidationCheck.DISJOINT,
+                    ValidationCheck.DETERMINISM, ValidationCheck.COMPLETENESS));
+            if (!result.isValid() || result.hasWarning(3) || !result.isComplete()) {
+                System.err.print(result);
+                System.exit(1);
             }
 
-            for (String stateName : stateNames) {
-                State tempState = getState(stateName);
+            Minimizer minimizer = new Minimizer(automaton);
+            Automaton minimal;
+            try {
+                minimal = minimizer.minimize();
+            } catch (LimitExceededException e) {
+                System.err.print(e);
+                System.exit(1);
+                return;
+            }
+            try (BufferedWriter writer = Files.newBufferedWriter(Path.of(args[2]))) {
+                FsaWriter.write(minimal, writer);
+            }
 
-                // If particular state is not belong to the possible states set
-                if (tempState == null) {
-                    throw new IncorrectStateException(stateName);
+            String output = getOption(args, "--mapping", null);
+            try (BufferedWriter writer = output == null
+                    ? new BufferedWriter(new OutputStreamWriter(System.out, StandardCharsets.UTF_8))
+                    : Files.newBufferedWriter(Path.of(output))) {
+                for (int state = 0; state < automaton.getStateCount(); state++) {
+                    int minimized = minimizer.getMinimizedState(state);
+                    writer.write(automaton.getStateName(state));
+                    writer.write(" -> ");
+                    writer.write(minimized == Automaton.NO_STATE ? "(unreachable)" : minimal.getStateName(minimized));
+                    writer.newLine();
                 }
-
-                FINAL_STATES.add(tempState);
             }
-
-        } catch (IOException | IncorrectStateException e) {
-            writer.write(e.toString());
-            reader.close();
-            writer.close();
-            System.exit(0);
         }
     }
 
     /**
-     * Parse the entire set of all possible transitions. Transitions in this implementation presented as
-     * links from state_1 --> (possible_states_from_state_1)
+     * Write the structure of the FSA from the input file: lines "unreachable=[...]" and "dead=[...]" and the line
+     * "scc=[...]" for every strongly connected component. If the input is not correct, its error is printed
      *
-     * @throws IOException throws when input file ("fsa.txt") does not exist
+     * @param args arguments of the program
      */
-    private static void scanTransitions() throws IOException {
+    private static void analyze(String[] args) throws IOException {
+        LoadedAutomaton loaded;
         try {
-            String tempString = reader.readLine();
-            String[] transitions = tempString.substring(7, tempString.length() - 1).split(",");
-
-            // If nothing was appeared
-            if (tempString.substring(7, tempString.length() - 1).length() == 0) {
-                return;
-            }
-
-            for (String transition : transitions) {
-                // Transition split by separator = ">"
-                String[] transitionSplit = transition.split(">");
+            loaded = load(Path.of(args[1]));
+        } catch (FsaException | LimitExceededException e) {
+            System.err.print(e);
+            System.exit(1);
+            return;
+        }
 
-                State sourceState = getState(transitionSplit[0]);
-                // If state_source from transition does not belong set of possible states
-                if (sourceState == null) {
-                    throw new IncorrectStateException(transitionSplit[0]);
+        try (loaded) {
+            Automaton automaton = loaded.automaton();
+            StructuralAnalysis analysis = new StructuralAnalysis(automaton);
+            String output = getOption(args, "--output", null);
+            try (BufferedWriter writer = output == null
+                    ? new BufferedWriter(new OutputStreamWriter(System.out, StandardCharsets.UTF_8))
+                    : Files.newBufferedWriter(Path.of(output))) {
+                writer.write("unreachable=[");
+                boolean isFirst = true;
+                for (int state = 0; state < automaton.getStateCount(); state++) {
+                    if (!analysis.isReachable(state)) {
+                        writer.write(isFirst ? "" : ",");
+                        writer.write(automaton.getStateName(state));
+                        isFirst = false;
+                    }
                 }
 
-                Transition trans = getTransition(transitionSplit[1]);
-                // If transition token from transition does not belong set of possible transitions
-                if (trans == null) {
-                    throw new TransitionIsNotPresentedException(transitionSplit[1]);
+                writer.write("]\ndead=[");
+                isFirst = true;
+                for (int state = 0; state < automaton.getStateCount(); state++) {
+                    if (!analysis.isLive(state)) {
+                        writer.write(isFirst ? "" : ",");
+                        writer.write(automaton.getStateName(state));
+                        isFirst = false;
+                    }
                 }
-
-                State destState = getState(transitionSplit[2]);
-                // If state_dest from transition does not belong set of possible states
-                if (destState == null) {
-                    throw new IncorrectStateException(transitionSplit[2]);
+                writer.write("]\n");
+
+                for (int component = 0; component < analysis.getComponentCount(); component++) {
+                    writer.write("scc=[");
+                    for (int i = analysis.getComponentStart(component); i < analysis.getComponentEnd(component); i++) {
+                        writer.write(i == analysis.getComponentStart(component) ? "" : ",");
+                        writer.write(automaton.getStateName(analysis.getComponentState(i)));
+                    }
+                    writer.write("]\n");
                 }
-
-                sourceState.addPossibleTransition(destState, trans);
             }
-        } catch (IOException | IncorrectStateException | TransitionIsNotPresentedException e) {
-            writer.write(e.toString());
-            reader.close();
-            writer.close();
-            System.exit(0);
         }
     }
 
     /**
-     * Get state by its name from set of all possible states
+     * Run all words of the file on the FSA from the input file. Words are read and run by blocks on the common
+     * pool, so the file may be larger than the memory. If the input is not correct, its error is printed
      *
-     * @param stateName name of the state needed state
-     * @return State if presented in set of states; Otherwise, null
+     * @param args arguments of the program
      */
-    private static State getState(String stateName) {
-        for (State state : STATES) {
-            if (state.getName().equals(stateName)) {
-                return state;
+    private static void accept(String[] args) throws IOException {
+        LoadedAutomaton loaded;
+        try {
+            loaded = load(Path.of(args[1]));
+        } catch (FsaException | LimitExceededException e) {
+            System.err.print(e);
+            System.exit(1);
+            return;
+        }
+
+        try (loaded) {
+            Automaton automaton = loaded.automaton();
+            WordAcceptor acceptor = new WordAcceptor(automaton);
+            String output = getOption(args, "--output", null);
+            try (BufferedReader reader = Files.newBufferedReader(Path.of(args[2]));
+                 BufferedWriter writer = output == null
+                         ? new BufferedWriter(new OutputStreamWriter(System.out, StandardCharsets.UTF_8))
+                         : Files.newBufferedWriter(Path.of(output))) {
+                int[] symbols = new int[1 << 16];
+                int[] wordStarts = new int[ACCEPT_BLOCK_SIZE + 1];
+                int wordCount = 0;
+                String line;
+                do {
+                    line = reader.readLine();
+                    if (line != null) {
+                        int length = wordStarts[wordCount];
+                        for (String token : line.split(" ")) {
+                            if (token.isEmpty()) {
+                                continue;
+                            }
+                            if (length == symbols.length) {
+                                symbols = Arrays.copyOf(symbols, 2 * symbols.length);
+                            }
+                            symbols[length++] = acceptor.getSymbol(token);
+                        }
+                        wordStarts[++wordCount] = length;
+                    }
+
+                    if (wordCount == ACCEPT_BLOCK_SIZE || line == null && wordCount > 0) {
+                        int[] results = acceptor.acceptAll(symbols, Arrays.copyOf(wordStarts, wordCount + 1),
+                                ForkJoinPool.commonPool());
+                        for (int state : results) {
+                            writer.write(state == Automaton.NO_STATE ? "rejected" : automaton.getStateName(state));
+                            writer.newLine();
+                        }
+                        wordCount = 0;
+                    }
+                } while (line != null);
             }
         }
-        return null;
     }
 
     /**
-     * Get transition token by its name from set of all possible transitions
+     * Parse the input file or map the binary file
      *
-     * @param transitionName name of the state needed transition token
-     * @return Transition if presented in set of transitions; Otherwise, null
+     * @param input input file in the format of "fsa.txt" or in the binary format
+     * @return FSA of the file; it should be closed after the usage
      */
-    private static Transition getTransition(String transitionName) {
-        for (Transition transition : ALPHA) {
-            if (transition.name().equals((transitionName))) {
-                return transition;
+    private static LoadedAutomaton load(Path input) throws IOException, FsaException, LimitExceededException {
+        try (FileChannel channel = FileChannel.open(input)) {
+            if (!AutomatonFile.isBinary(channel)) {
+                return new LoadedAutomaton(new FsaParser(channel).parse());
             }
+            return new LoadedAutomaton(channel.size() > Integer.MAX_VALUE ? OffHeapAutomaton.load(channel)
+                    : AutomatonFile.map(channel));
         }
-        return null;
     }
 
     /**
-     * The common driver for all parsing methods of the program.
-     * Parsing provided sequentially by task's conditions.
+     * FSA loaded by load(); the direct memory of the large binary file is released by close()
+     *
+     * @param automaton loaded FSA
      */
-    private static void makeFormattedInput() {
-        try {
-            scanStates();
-            scanAlpha();
-            scanInitialState();
-            scanFinalStates();
-            scanTransitions();
-        } catch (IOException e) {
-            System.out.println(e.getMessage());
-            System.exit(0);
+    private record LoadedAutomaton(Automaton automaton) implements AutoCloseable {
+        @Override
+        public void close() {
+            if (automaton instanceof OffHeapAutomaton offHeapAutomaton) {
+                offHeapAutomaton.close();
+            }
         }
     }
 
     /**
-     * Mark appearing warnings in final report
+     * Create the cache of the results from the options "--cache", "--cache-dir" and "--cache-dir-size"
+     *
+     * @param args arguments of the program
+     * @return cache or null, if there are no cache options
      */
-    private static void markWarnings() {
-        // If no final states
-        if (FINAL_STATES.size() == 0) {
-            REPORT.markWarning(1);
-        }
-
-        // If some states are not reachable from the initial state, but connected with other states somehow (!disjoint)
-        if (!CHECKER.areAllStatesReachable(STATES, initialState)) {
-            REPORT.markWarning(2);
+    private static ResultCache createCache(String[] args) throws IOException {
+        String capacity = getOption(args, "--cache", null);
+        String directory = getOption(args, "--cache-dir", null);
+        if (capacity == null && directory == null) {
+            return null;
         }
 
-        // If there is more than one transition with the same transition token from particular state
-        if (!CHECKER.isDeterministic(STATES)) {
-            REPORT.markWarning(3);
-        }
+        return new ResultCache(capacity == null ? DEFAULT_CACHE_CAPACITY : Integer.parseInt(capacity),
+                directory == null ? null : Path.of(directory),
+                Long.parseLong(getOption(args, "--cache-dir-size", String.valueOf(ResultCache.DEFAULT_DISK_LIMIT))));
     }
-}
 
-/**
- * Class State implements node of the FSA with the name. Name of states cannot repeat
- */
-class State {
     /**
-     * All possible states which can be reached from this state
+     * Create the external validator from the options "--temp-dir" and "--run-size"
+     *
+     * @param args arguments of the program
+     * @return validator of the FSA larger than the memory
      */
-    private ArrayList<State> possibleStatesToMove = new ArrayList<>();
+    private static ExternalValidator createExternalValidator(String[] args) {
+        try {
+            Path directory = Path.of(getOption(args, "--temp-dir", System.getProperty("java.io.tmpdir")));
+            int runSize = Integer.parseInt(getOption(args, "--run-size",
+                    String.valueOf(ExternalValidator.DEFAULT_RUN_SIZE)));
+            return new ExternalValidator(directory, runSize);
+        } catch (IllegalArgumentException e) {
+            System.err.print(USAGE);
+            System.exit(1);
+            return null;
+        }
+    }
+
     /**
-     * All transition tokens which can be used from this state
+     * Get the selected checks from the option "--checks"
+     *
+     * @param args arguments of the program
+     * @return selected checks or all checks, if there is no such option
      */
-    private final ArrayList<Transition> transitions = new ArrayList<>();
-    private final String name;
+    private static Set<ValidationCheck> createChecks(String[] args) {
+        String checks = getOption(args, "--checks", null);
+        if (checks == null) {
+            return ValidationCheck.ALL;
+        }
 
-    State(String name) {
-        this.name = name;
+        try {
+            return ValidationCheck.parse(checks);
+        } catch (IllegalArgumentException e) {
+            System.err.print(USAGE);
+            System.exit(1);
+            return null;
+        }
     }
 
-    public ArrayList<State> getPossibleStatesToMove() {
-        return possibleStatesToMove;
-    }
+    /**
+     * Create the metrics from the option "--metrics"
+     *
+     * @param args arguments of the program
+     * @return metrics or null, if they are not collected
+     */
+    private static ValidationMetrics createMetrics(String[] args) {
+        String format = getOption(args, "--metrics", null);
+        if (format == null) {
+            return null;
+        }
 
-    public void setPossibleStatesToMove(ArrayList<State> possibleStatesToMove) {
-        this.possibleStatesToMove = possibleStatesToMove;
+        switch (format) {
+            case "json" -> {
+                return new ValidationMetrics(ValidationMetrics.Format.JSON);
+            }
+            case "prometheus" -> {
+                return new ValidationMetrics(ValidationMetrics.Format.PROMETHEUS);
+            }
+            default -> {
+                System.err.print(USAGE);
+                System.exit(1);
+                return null;
+            }
+        }
     }
 
-    public ArrayList<Transition> getTransitions() {
-        return transitions;
-    }
+    /**
+     * Write the collected metrics to the file from the option "--metrics-output" or to stderr
+     *
+     * @param metrics collected metrics or null
+     * @param args    arguments of the program
+     */
+    private static void writeMetrics(ValidationMetrics metrics, String[] args) throws IOException {
+        if (metrics == null) {
+            return;
+        }
 
-    public String getName() {
-        return name;
+        String output = getOption(args, "--metrics-output", null);
+        if (output == null) {
+            System.err.print(metrics);
+        } else {
+            Files.writeString(Path.of(output), metrics.toString());
+        }
     }
 
-    public void addPossibleTransition(State destState, Transition transition) {
-        possibleStatesToMove.add(destState);
-        transitions.add(transition);
+    /**
+     * Get value of the option from the arguments, e.g. "--threads 4"
+     *
+     * @param args         arguments of the program
+     * @param name         name of the option
+     * @param defaultValue value if the option is not presented
+     * @return value of the option
+     */
+    private static String getOption(String[] args, String name, String defaultValue) {
+        for (int i = 0; i < args.length - 1; i++) {
+            if (args[i].equals(name)) {
+                return args[i + 1];
+            }
+        }
+        return defaultValue;
     }
 }
-
-/**
- * Transition token
- *
- * @param name of the transition token
- */
-record Transition(String name) {
-}
-
-
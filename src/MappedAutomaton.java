@@ -0,0 +1,108 @@
+import java.nio.ByteBuffer;
+import java.nio.IntBuffer;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Automaton over the memory-mapped binary file (see AutomatonFile). Arrays of the compressed sparse row form
+ * are read right from the mapped buffers, names are decoded only when they are requested.
+ * All buffers are read by absolute positions only, so the FSA can be used from many threads at once.
+ */
+public final class MappedAutomaton implements Automaton {
+    private final int stateCount;
+    private final int symbolCount;
+    private final int initialState;
+    private final IntBuffer finalStates;
+    private final IntBuffer offsets;
+    private final IntBuffer targets;
+    private final IntBuffer labels;
+    /**
+     * Offsets of the UTF-8 bytes of every name in the names buffer; the length is the number of names + 1
+     */
+    private final IntBuffer stateNameOffsets;
+    private final ByteBuffer stateNames;
+    private final IntBuffer symbolNameOffsets;
+    private final ByteBuffer symbolNames;
+
+    MappedAutomaton(int stateCount, int symbolCount, int initialState, IntBuffer finalStates, IntBuffer offsets,
+                    IntBuffer targets, IntBuffer labels, IntBuffer stateNameOffsets, ByteBuffer stateNames,
+                    IntBuffer symbolNameOffsets, ByteBuffer symbolNames) {
+        this.stateCount = stateCount;
+        this.symbolCount = symbolCount;
+        this.initialState = initialState;
+        this.finalStates = finalStates;
+        this.offsets = offsets;
+        this.targets = targets;
+        this.labels = labels;
+        this.stateNameOffsets = stateNameOffsets;
+        this.stateNames = stateNames;
+        this.symbolNameOffsets = symbolNameOffsets;
+        this.symbolNames = symbolNames;
+    }
+
+    @Override
+    public int getStateCount() {
+        return stateCount;
+    }
+
+    @Override
+    public int getSymbolCount() {
+        return symbolCount;
+    }
+
+    @Override
+    public int getEdgeCount() {
+        return targets.limit();
+    }
+
+    @Override
+    public int getInitialState() {
+        return initialState;
+    }
+
+    @Override
+    public int getFinalStateCount() {
+        return finalStates.limit();
+    }
+
+    @Override
+    public int getFinalState(int index) {
+        return finalStates.get(index);
+    }
+
+    @Override
+    public int getOutStart(int state) {
+        return offsets.get(state);
+    }
+
+    @Override
+    public int getOutEnd(int state) {
+        return offsets.get(state + 1);
+    }
+
+    @Override
+    public int getTarget(int edge) {
+        return targets.get(edge);
+    }
+
+    @Override
+    public int getLabel(int edge) {
+        return labels.get(edge);
+    }
+
+    @Override
+    public String getStateName(int state) {
+        return decode(stateNameOffsets, stateNames, state);
+    }
+
+    @Override
+    public String getSymbolName(int symbol) {
+        return decode(symbolNameOffsets, symbolNames, symbol);
+    }
+
+    private static String decode(IntBuffer nameOffsets, ByteBuffer names, int id) {
+        int start = nameOffsets.get(id);
+        byte[] name = new byte[nameOffsets.get(id + 1) - start];
+        names.get(start, name);
+        return new String(name, StandardCharsets.UTF_8);
+    }
+}
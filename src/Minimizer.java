@@ -0,0 +1,331 @@
+import exceptions.LimitExceededException;
+
+import java.util.Arrays;
+
+/**
+ * Minimization of the complete deterministic FSA by the Hopcroft algorithm in O(n * k * log n) for n states and
+ * k transition tokens. States which are not reachable from the initial state are removed first.
+ * <p>
+ * The partition is kept in a few int arrays without objects per block: states of every block are the range
+ * [blockStarts[b], blockEnds[b]) of the elements array, and the states marked by the current splitter are moved
+ * to the front of their range. A block is split into the marked and unmarked parts; the smaller part gets the new
+ * id, so every state changes its block O(log n) times. Only the new part is added to the work-list for every
+ * token, which is enough for the Hopcroft algorithm: the old part either is still in the work-list or is the
+ * larger half.
+ * <p>
+ * Every state of the result is named as the first original state (by the id) of its block.
+ */
+public class Minimizer {
+    /**
+     * Maximum number of (state, token) pairs of the reachable states; the tables of transitions are int arrays
+     * with one more element
+     */
+    static final int MAX_TABLE_SIZE = Integer.MAX_VALUE - 9;
+    private final Automaton automaton;
+    private final int symbolCount;
+    /**
+     * State of the result of every original state or NO_STATE for the unreachable state
+     */
+    private final int[] minimizedStates;
+    /**
+     * Reachable states renumbered densely; destination of the state s by the token a is delta[s * k + a]
+     */
+    private int[] originalStates;
+    private int[] delta;
+    /**
+     * Refinable partition of the reachable states
+     */
+    private int[] elements;
+    private int[] locations;
+    private int[] blocks;
+    private int[] blockStarts;
+    private int[] blockEnds;
+    /**
+     * End of the marked states at the front of every block
+     */
+    private int[] blockMarks;
+    private int blockCount = 0;
+    private int[] touchedBlocks;
+    private int touchedCount = 0;
+    /**
+     * Work-list of splitters (block * k + token)
+     */
+    private int[] splitters = new int[16];
+    private int splitterCount = 0;
+
+    /**
+     * @param automaton complete deterministic FSA
+     * @throws IllegalArgumentException throws when FSA is not complete and deterministic
+     */
+    public Minimizer(Automaton automaton) {
+        Checker.TransitionsProperties properties = new Checker().analyzeTransitions(automaton);
+        if (automaton.getInitialState() == Automaton.NO_STATE || !properties.isDeterministic()
+                || !properties.isComplete()) {
+            throw new IllegalArgumentException("Only complete deterministic FSA can be minimized");
+        }
+
+        this.automaton = automaton;
+        symbolCount = automaton.getSymbolCount();
+        minimizedStates = new int[automaton.getStateCount()];
+    }
+
+    /**
+     * Build the minimal FSA which accepts the same words
+     *
+     * @return complete deterministic FSA with the minimal number of states
+     * @throws LimitExceededException throws when the table of transitions of the reachable states does not fit
+     *                                into an array
+     */
+    public Automaton minimize() throws LimitExceededException {
+        int stateCount = buildReachableTransitions();
+        buildInitialPartition(stateCount);
+        refine(stateCount);
+        return buildResult();
+    }
+
+    /**
+     * @param state id of the original state
+     * @return id of the state of the result or NO_STATE, if the state is not reachable
+     */
+    public int getMinimizedState(int state) {
+        return minimizedStates[state];
+    }
+
+    /**
+     * Renumber states reachable from the initial state and collect their transitions into the dense table
+     *
+     * @return number of reachable states
+     */
+    private int buildReachableTransitions() throws LimitExceededException {
+        Arrays.fill(minimizedStates, Automaton.NO_STATE);
+        // Dense ids of the reachable states in the order of the BFS; the queue is originalStates itself
+        int[] ids = minimizedStates;
+        originalStates = new int[automaton.getStateCount()];
+        int stateCount = 0;
+        ids[automaton.getInitialState()] = stateCount;
+        originalStates[stateCount++] = automaton.getInitialState();
+        for (int head = 0; head < stateCount; head++) {
+            int state = originalStates[head];
+            for (int edge = automaton.getOutStart(state); edge < automaton.getOutEnd(state); edge++) {
+                int target = automaton.getTarget(edge);
+                if (ids[target] == Automaton.NO_STATE) {
+                    ids[target] = stateCount;
+                    originalStates[stateCount++] = target;
+                }
+            }
+        }
+
+        if ((long) stateCount * symbolCount > MAX_TABLE_SIZE) {
+            throw new LimitExceededException(MAX_TABLE_SIZE + " pairs of a state and a token");
+        }
+        delta = new int[stateCount * symbolCount];
+        for (int id = 0; id < stateCount; id++) {
+            int state = originalStates[id];
+            for (int edge = automaton.getOutStart(state); edge < automaton.getOutEnd(state); edge++) {
+                delta[id * symbolCount + automaton.getLabel(edge)] = ids[automaton.getTarget(edge)];
+            }
+        }
+        return stateCount;
+    }
+
+    /**
+     * Split states into final and not final ones; the smaller block is the first splitter for every token
+     */
+    private void buildInitialPartition(int stateCount) {
+        elements = new int[stateCount];
+        locations = new int[stateCount];
+        blocks = new int[stateCount];
+        blockStarts = new int[stateCount];
+        blockEnds = new int[stateCount];
+        blockMarks = new int[stateCount];
+        touchedBlocks = new int[stateCount];
+
+        boolean[] isFinal = new boolean[stateCount];
+        for (int i = 0; i < automaton.getFinalStateCount(); i++) {
+            int id = minimizedStates[automaton.getFinalState(i)];
+            if (id != Automaton.NO_STATE) {
+                isFinal[id] = true;
+            }
+        }
+
+        int finalCount = 0;
+        for (int id = 0; id < stateCount; id++) {
+            if (isFinal[id]) {
+                elements[finalCount++] = id;
+            }
+        }
+        int position = finalCount;
+        for (int id = 0; id < stateCount; id++) {
+            if (!isFinal[id]) {
+                elements[position++] = id;
+            }
+        }
+        for (int i = 0; i < stateCount; i++) {
+            locations[elements[i]] = i;
+        }
+
+        if (finalCount > 0) {
+            addBlock(0, finalCount);
+        }
+        if (finalCount < stateCount) {
+            addBlock(finalCount, stateCount);
+        }
+        if (blockCount == 2) {
+            int smaller = finalCount <= stateCount - finalCount ? 0 : 1;
+            for (int symbol = 0; symbol < symbolCount; symbol++) {
+                addSplitter(smaller, symbol);
+            }
+        }
+    }
+
+    private int addBlock(int start, int end) {
+        int block = blockCount++;
+        blockStarts[block] = start;
+        blockEnds[block] = end;
+        blockMarks[block] = start;
+        for (int i = start; i < end; i++) {
+            blocks[elements[i]] = block;
+        }
+        return block;
+    }
+
+    private void addSplitter(int block, int symbol) {
+        if (splitterCount == splitters.length) {
+            splitters = Arrays.copyOf(splitters, 2 * splitters.length);
+        }
+        splitters[splitterCount++] = block * symbolCount + symbol;
+    }
+
+    /**
+     * Refine the partition by splitters until the work-list is empty
+     */
+    private void refine(int stateCount) {
+        // Incoming transitions of every state and token: sources of (s, a) are [inStarts[s * k + a], ...)
+        int[] inStarts = new int[stateCount * symbolCount + 1];
+        for (int i = 0; i < delta.length; i++) {
+            inStarts[delta[i] * symbolCount + i % symbolCount + 1]++;
+        }
+        for (int i = 0; i < delta.length; i++) {
+            inStarts[i + 1] += inStarts[i];
+        }
+        int[] inSources = new int[delta.length];
+        int[] position = Arrays.copyOf(inStarts, delta.length);
+        for (int i = 0; i < delta.length; i++) {
+            inSources[position[delta[i] * symbolCount + i % symbolCount]++] = i / symbolCount;
+        }
+
+        // States of the splitter are copied, since marking moves states also inside the splitter itself
+        int[] splitter = new int[stateCount];
+        while (splitterCount > 0) {
+            int top = splitters[--splitterCount];
+            int block = top / symbolCount;
+            int symbol = top % symbolCount;
+            int size = blockEnds[block] - blockStarts[block];
+            System.arraycopy(elements, blockStarts[block], splitter, 0, size);
+
+            for (int i = 0; i < size; i++) {
+                int row = splitter[i] * symbolCount + symbol;
+                for (int j = inStarts[row]; j < inStarts[row + 1]; j++) {
+                    mark(inSources[j]);
+                }
+            }
+            split();
+        }
+    }
+
+    private void mark(int state) {
+        int block = blocks[state];
+        int location = locations[state];
+        int mark = blockMarks[block];
+        if (location < mark) {
+            return;
+        }
+        if (mark == blockStarts[block]) {
+            touchedBlocks[touchedCount++] = block;
+        }
+
+        int other = elements[mark];
+        elements[mark] = state;
+        locations[state] = mark;
+        elements[location] = other;
+        locations[other] = location;
+        blockMarks[block] = mark + 1;
+    }
+
+    /**
+     * Split every touched block into the marked and unmarked parts
+     */
+    private void split() {
+        for (int i = 0; i < touchedCount; i++) {
+            int block = touchedBlocks[i];
+            int start = blockStarts[block];
+            int mark = blockMarks[block];
+            int end = blockEnds[block];
+            if (mark == end) {
+                blockMarks[block] = start;
+                continue;
+            }
+
+            int newBlock;
+            if (mark - start <= end - mark) {
+                blockStarts[block] = mark;
+                newBlock = addBlock(start, mark);
+            } else {
+                blockEnds[block] = mark;
+                newBlock = addBlock(mark, end);
+            }
+            blockMarks[block] = blockStarts[block];
+            for (int symbol = 0; symbol < symbolCount; symbol++) {
+                addSplitter(newBlock, symbol);
+            }
+        }
+        touchedCount = 0;
+    }
+
+    /**
+     * Every block is a state of the result; blocks are numbered by their first original state
+     */
+    private Automaton buildResult() throws LimitExceededException {
+        int[] blockIds = new int[blockCount];
+        Arrays.fill(blockIds, Automaton.NO_STATE);
+        int[] representatives = new int[blockCount];
+        SymbolTable states = new SymbolTable();
+        SymbolTable alphabet = new SymbolTable();
+        for (int symbol = 0; symbol < symbolCount; symbol++) {
+            alphabet.add(automaton.getSymbolName(symbol));
+        }
+
+        int[] ids = minimizedStates;
+        for (int state = 0; state < automaton.getStateCount(); state++) {
+            int id = ids[state];
+            if (id == Automaton.NO_STATE) {
+                continue;
+            }
+            int block = blocks[id];
+            if (blockIds[block] == Automaton.NO_STATE) {
+                blockIds[block] = states.size();
+                representatives[states.size()] = id;
+                states.add(automaton.getStateName(state));
+            }
+            ids[state] = blockIds[block];
+        }
+
+        AutomatonBuilder builder = new AutomatonBuilder(states, alphabet);
+        builder.setInitialState(ids[automaton.getInitialState()]);
+        boolean[] isFinal = new boolean[blockCount];
+        for (int i = 0; i < automaton.getFinalStateCount(); i++) {
+            int minimized = ids[automaton.getFinalState(i)];
+            if (minimized != Automaton.NO_STATE && !isFinal[minimized]) {
+                isFinal[minimized] = true;
+                builder.addFinalState(minimized);
+            }
+        }
+        for (int minimized = 0; minimized < blockCount; minimized++) {
+            for (int symbol = 0; symbol < symbolCount; symbol++) {
+                int target = delta[representatives[minimized] * symbolCount + symbol];
+                builder.addTransition(minimized, symbol, blockIds[blocks[target]]);
+            }
+        }
+        return builder.build();
+    }
+}
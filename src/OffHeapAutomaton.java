@@ -0,0 +1,391 @@
+import java.io.IOException;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Field;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+
+/**
+ * Automaton with all arrays and names in the direct memory outside of the heap, so the heap and the pauses of
+ * the garbage collector do not depend on the size of the FSA. Every array is split into chunks of direct
+ * buffers (a buffer is limited by 2 GiB), so the FSA may have up to Integer.MAX_VALUE transitions.
+ * <p>
+ * The memory is released by close(); the FSA must not be used after it or concurrently with it. Reading
+ * from many threads at once is safe. The direct memory is limited by the option -XX:MaxDirectMemorySize.
+ * <p>
+ * The checks still keep their per-state arrays on the heap (bitsets, stacks and the union-find), so the heap
+ * grows with the number of states, but not with the number of transitions: the parallel traversal, which
+ * builds the incoming transitions, is not used for this FSA.
+ */
+public final class OffHeapAutomaton implements Automaton, AutoCloseable {
+    private final int stateCount;
+    private final int symbolCount;
+    private final int edgeCount;
+    private final int initialState;
+    private final int finalStateCount;
+    private final Memory finalStates;
+    private final Memory offsets;
+    private final Memory targets;
+    private final Memory labels;
+    /**
+     * Offsets of the UTF-8 bytes of every name in the names memory; the length is the number of names + 1
+     */
+    private final Memory stateNameOffsets;
+    private final Memory stateNames;
+    private final Memory symbolNameOffsets;
+    private final Memory symbolNames;
+
+    private OffHeapAutomaton(int stateCount, int symbolCount, int edgeCount, int initialState, int finalStateCount,
+                             long stateNamesLength, long symbolNamesLength) {
+        this.stateCount = stateCount;
+        this.symbolCount = symbolCount;
+        this.edgeCount = edgeCount;
+        this.initialState = initialState;
+        this.finalStateCount = finalStateCount;
+        finalStates = new Memory(4L * finalStateCount);
+        offsets = new Memory(4L * (stateCount + 1));
+        targets = new Memory(4L * edgeCount);
+        labels = new Memory(4L * edgeCount);
+        stateNameOffsets = new Memory(4L * (stateCount + 1));
+        symbolNameOffsets = new Memory(4L * (symbolCount + 1));
+        stateNames = new Memory(stateNamesLength);
+        symbolNames = new Memory(symbolNamesLength);
+    }
+
+    /**
+     * Read the binary file (see AutomatonFile) into the direct memory. Unlike AutomatonFile.map(),
+     * the file may be larger than 2 GiB
+     *
+     * @param path path of the binary file
+     * @return FSA in the direct memory, it should be closed after the usage
+     * @throws IOException throws when file can not be read or it is not a correct binary FSA
+     */
+    public static OffHeapAutomaton load(Path path) throws IOException {
+        try (FileChannel channel = FileChannel.open(path)) {
+            return load(channel);
+        }
+    }
+
+    /**
+     * Read the binary file into the direct memory
+     *
+     * @param channel channel of the binary file
+     * @return FSA in the direct memory, it should be closed after the usage
+     * @throws IOException throws when file can not be read or it is not a correct binary FSA
+     */
+    public static OffHeapAutomaton load(FileChannel channel) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(AutomatonFile.HEADER_SIZE);
+        while (buffer.hasRemaining() && channel.read(buffer, buffer.position()) > 0) {
+            // Read until the header is complete or the end of the file
+        }
+        AutomatonFile.Header header = AutomatonFile.readHeader(buffer.flip(), channel.size());
+
+        OffHeapAutomaton automaton = new OffHeapAutomaton(header.stateCount(), header.symbolCount(),
+                header.edgeCount(), header.initialState(), header.finalStateCount(), header.stateNamesLength(),
+                header.symbolNamesLength());
+        try {
+            long position = AutomatonFile.HEADER_SIZE;
+            for (Memory memory : new Memory[]{automaton.finalStates, automaton.offsets, automaton.targets,
+                    automaton.labels, automaton.stateNameOffsets, automaton.symbolNameOffsets, automaton.stateNames,
+                    automaton.symbolNames}) {
+                position = memory.read(channel, position);
+            }
+            automaton.checkSections(header);
+        } catch (IOException | RuntimeException e) {
+            automaton.close();
+            throw e;
+        }
+        return automaton;
+    }
+
+    /**
+     * Check every id and offset of the read sections as AutomatonFile.map() does
+     *
+     * @throws IOException throws when some id or offset is out of its range
+     */
+    private void checkSections(AutomatonFile.Header header) throws IOException {
+        checkIds(finalStates, finalStateCount, stateCount);
+        checkOffsets(offsets, stateCount + 1, edgeCount);
+        checkIds(targets, edgeCount, stateCount);
+        checkIds(labels, edgeCount, symbolCount);
+        checkOffsets(stateNameOffsets, stateCount + 1, header.stateNamesLength());
+        checkOffsets(symbolNameOffsets, symbolCount + 1, header.symbolNamesLength());
+    }
+
+    private static void checkIds(Memory ids, int length, int count) throws IOException {
+        for (int i = 0; i < length; i++) {
+            int id = ids.getInt(i);
+            if (id < 0 || id >= count) {
+                throw new IOException(AutomatonFile.MALFORMED_MESSAGE);
+            }
+        }
+    }
+
+    private static void checkOffsets(Memory offsets, int length, int total) throws IOException {
+        int previous = 0;
+        for (int i = 0; i < length; i++) {
+            int offset = offsets.getInt(i);
+            if (i == 0 ? offset != 0 : offset < previous) {
+                throw new IOException(AutomatonFile.MALFORMED_MESSAGE);
+            }
+            previous = offset;
+        }
+        if (previous != total) {
+            throw new IOException(AutomatonFile.MALFORMED_MESSAGE);
+        }
+    }
+
+    /**
+     * Copy the FSA into the direct memory, e.g. the FSA which is parsed or mapped
+     *
+     * @param automaton FSA with the initial state
+     * @return FSA in the direct memory, it should be closed after the usage
+     * @throws IllegalArgumentException throws when FSA has no initial state or names are longer than 2 GiB
+     */
+    public static OffHeapAutomaton copyOf(Automaton automaton) {
+        if (automaton.getInitialState() == Automaton.NO_STATE) {
+            throw new IllegalArgumentException("FSA without the initial state can not be copied");
+        }
+
+        long stateNamesLength = 0;
+        for (int state = 0; state < automaton.getStateCount(); state++) {
+            stateNamesLength += automaton.getStateName(state).getBytes(StandardCharsets.UTF_8).length;
+        }
+        long symbolNamesLength = 0;
+        for (int symbol = 0; symbol < automaton.getSymbolCount(); symbol++) {
+            symbolNamesLength += automaton.getSymbolName(symbol).getBytes(StandardCharsets.UTF_8).length;
+        }
+        if (stateNamesLength > Integer.MAX_VALUE || symbolNamesLength > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("Names are too long for the FSA in the direct memory");
+        }
+
+        OffHeapAutomaton copy = new OffHeapAutomaton(automaton.getStateCount(), automaton.getSymbolCount(),
+                automaton.getEdgeCount(), automaton.getInitialState(), automaton.getFinalStateCount(),
+                stateNamesLength, symbolNamesLength);
+        for (int i = 0; i < automaton.getFinalStateCount(); i++) {
+            copy.finalStates.putInt(i, automaton.getFinalState(i));
+        }
+        for (int state = 0; state <= automaton.getStateCount(); state++) {
+            copy.offsets.putInt(state, state == automaton.getStateCount() ? automaton.getEdgeCount()
+                    : automaton.getOutStart(state));
+        }
+        for (int edge = 0; edge < automaton.getEdgeCount(); edge++) {
+            copy.targets.putInt(edge, automaton.getTarget(edge));
+            copy.labels.putInt(edge, automaton.getLabel(edge));
+        }
+
+        int offset = 0;
+        for (int state = 0; state < automaton.getStateCount(); state++) {
+            copy.stateNameOffsets.putInt(state, offset);
+            offset = copy.stateNames.putBytes(offset,
+                    automaton.getStateName(state).getBytes(StandardCharsets.UTF_8));
+        }
+        copy.stateNameOffsets.putInt(automaton.getStateCount(), offset);
+        offset = 0;
+        for (int symbol = 0; symbol < automaton.getSymbolCount(); symbol++) {
+            copy.symbolNameOffsets.putInt(symbol, offset);
+            offset = copy.symbolNames.putBytes(offset,
+                    automaton.getSymbolName(symbol).getBytes(StandardCharsets.UTF_8));
+        }
+        copy.symbolNameOffsets.putInt(automaton.getSymbolCount(), offset);
+        return copy;
+    }
+
+    @Override
+    public int getStateCount() {
+        return stateCount;
+    }
+
+    @Override
+    public int getSymbolCount() {
+        return symbolCount;
+    }
+
+    @Override
+    public int getEdgeCount() {
+        return edgeCount;
+    }
+
+    @Override
+    public int getInitialState() {
+        return initialState;
+    }
+
+    @Override
+    public int getFinalStateCount() {
+        return finalStateCount;
+    }
+
+    @Override
+    public int getFinalState(int index) {
+        return finalStates.getInt(index);
+    }
+
+    @Override
+    public int getOutStart(int state) {
+        return offsets.getInt(state);
+    }
+
+    @Override
+    public int getOutEnd(int state) {
+        return offsets.getInt(state + 1);
+    }
+
+    @Override
+    public int getTarget(int edge) {
+        return targets.getInt(edge);
+    }
+
+    @Override
+    public int getLabel(int edge) {
+        return labels.getInt(edge);
+    }
+
+    @Override
+    public String getStateName(int state) {
+        return decode(stateNameOffsets, stateNames, state);
+    }
+
+    @Override
+    public String getSymbolName(int symbol) {
+        return decode(symbolNameOffsets, symbolNames, symbol);
+    }
+
+    private static String decode(Memory nameOffsets, Memory names, int id) {
+        int start = nameOffsets.getInt(id);
+        byte[] name = new byte[nameOffsets.getInt(id + 1) - start];
+        names.getBytes(start, name);
+        return new String(name, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Release the direct memory right now instead of waiting for the garbage collector. Repeated calls do nothing
+     */
+    @Override
+    public void close() {
+        for (Memory memory : new Memory[]{finalStates, offsets, targets, labels, stateNameOffsets, stateNames,
+                symbolNameOffsets, symbolNames}) {
+            memory.free();
+        }
+    }
+
+    /**
+     * Direct memory of the given size split into chunks. Ints are aligned, so an int never crosses chunks
+     */
+    private static final class Memory {
+        private static final int CHUNK_SHIFT = 30;
+        private static final int CHUNK_SIZE = 1 << CHUNK_SHIFT;
+        private static final MethodHandle CLEANER = findCleaner();
+        private ByteBuffer[] chunks;
+
+        Memory(long size) {
+            chunks = new ByteBuffer[(int) ((size + CHUNK_SIZE - 1) >>> CHUNK_SHIFT)];
+            try {
+                for (int i = 0; i < chunks.length; i++) {
+                    int chunkSize = (int) Math.min(CHUNK_SIZE, size - ((long) i << CHUNK_SHIFT));
+                    chunks[i] = ByteBuffer.allocateDirect(chunkSize).order(ByteOrder.LITTLE_ENDIAN);
+                }
+            } catch (OutOfMemoryError e) {
+                free();
+                throw e;
+            }
+        }
+
+        int getInt(int index) {
+            long position = 4L * index;
+            return getChunk(position).getInt((int) position & (CHUNK_SIZE - 1));
+        }
+
+        void putInt(int index, int value) {
+            long position = 4L * index;
+            getChunk(position).putInt((int) position & (CHUNK_SIZE - 1), value);
+        }
+
+        void getBytes(long position, byte[] destination) {
+            for (int i = 0; i < destination.length; ) {
+                int length = (int) Math.min(destination.length - i, CHUNK_SIZE - (position & (CHUNK_SIZE - 1)));
+                getChunk(position).get((int) position & (CHUNK_SIZE - 1), destination, i, length);
+                position += length;
+                i += length;
+            }
+        }
+
+        /**
+         * @return position after the written bytes
+         */
+        int putBytes(int position, byte[] source) {
+            for (int i = 0; i < source.length; ) {
+                int length = Math.min(source.length - i, CHUNK_SIZE - (position & (CHUNK_SIZE - 1)));
+                getChunk(position).put(position & (CHUNK_SIZE - 1), source, i, length);
+                position += length;
+                i += length;
+            }
+            return position;
+        }
+
+        /**
+         * Fill the memory from the channel
+         *
+         * @return position in the channel after the read bytes
+         */
+        long read(FileChannel channel, long position) throws IOException {
+            for (ByteBuffer chunk : chunks) {
+                ByteBuffer destination = chunk.duplicate().clear();
+                while (destination.hasRemaining()) {
+                    int read = channel.read(destination, position);
+                    if (read < 0) {
+                        throw new IOException("Binary FSA is truncated or corrupted");
+                    }
+                    position += read;
+                }
+            }
+            return position;
+        }
+
+        private ByteBuffer getChunk(long position) {
+            ByteBuffer[] chunks = this.chunks;
+            if (chunks == null) {
+                throw new IllegalStateException("FSA is closed");
+            }
+            return chunks[(int) (position >>> CHUNK_SHIFT)];
+        }
+
+        void free() {
+            ByteBuffer[] chunks = this.chunks;
+            this.chunks = null;
+            if (chunks == null || CLEANER == null) {
+                return;
+            }
+            for (ByteBuffer chunk : chunks) {
+                if (chunk != null) {
+                    try {
+                        CLEANER.invokeExact(chunk);
+                    } catch (Throwable e) {
+                        // The memory will be released by the garbage collector
+                    }
+                }
+            }
+        }
+
+        /**
+         * Unsafe.invokeCleaner() is the only way to release a direct buffer before Java 19; it is found by the
+         * reflection, since sun.misc is not the public API. Without it the memory is released by the garbage
+         * collector
+         */
+        private static MethodHandle findCleaner() {
+            try {
+                Class<?> unsafeClass = Class.forName("sun.misc.Unsafe");
+                Field field = unsafeClass.getDeclaredField("theUnsafe");
+                field.setAccessible(true);
+                return MethodHandles.lookup().findVirtual(unsafeClass, "invokeCleaner",
+                        MethodType.methodType(void.class, ByteBuffer.class)).bindTo(field.get(null));
+            } catch (ReflectiveOperationException | RuntimeException e) {
+                return null;
+            }
+        }
+    }
+}
@@ -0,0 +1,299 @@
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.stream.IntStream;
+
+/**
+ * Parallel level-synchronous BFS from the initial state for very large FSA.
+ * <p>
+ * Every level is expanded on the fork-join pool, visited states are marked in the atomic bitmap.
+ * The direction of the traversal is switched by the size of the frontier:
+ * <ul>
+ * <li>top-down - states of the frontier (the queue) mark their not visited neighbours;</li>
+ * <li>bottom-up - every not visited state looks for a neighbour in the frontier (the bitmap), which is much
+ * cheaper when the frontier contains a large part of the FSA.</li>
+ * </ul>
+ * Small frontiers are expanded in the calling thread, so long chains are not slower than the sequential
+ * traversal. The set of visited states does not depend on the order of the traversal, so the result is
+ * identical to the sequential one.
+ */
+public class ParallelReachability {
+    /**
+     * Switch to bottom-up when the frontier has more than 1/ALPHA of the unexplored transitions
+     */
+    private static final int ALPHA = 14;
+    /**
+     * Switch back to top-down when the frontier has less than 1/BETA of all states
+     */
+    private static final int BETA = 24;
+    private static final int SEQUENTIAL_FRONTIER = 1 << 12;
+    private static final int CHUNK_SIZE = 1 << 10;
+    private final Automaton automaton;
+    private final ForkJoinPool pool;
+    /**
+     * Offsets of the incoming transitions of every state
+     */
+    private int[] inOffsets;
+    /**
+     * Source state of every incoming transition
+     */
+    private int[] inSources;
+
+    /**
+     * @param automaton parsed FSA
+     * @param pool      pool which expands levels of the traversal
+     */
+    public ParallelReachability(Automaton automaton, ForkJoinPool pool) {
+        this.automaton = automaton;
+        this.pool = pool;
+    }
+
+    /**
+     * @return number of states reachable from the initial state by the transitions
+     */
+    public int countReachableStates() {
+        return traverse(false);
+    }
+
+    /**
+     * @return number of states connected with the initial state when directions of transitions are ignored
+     */
+    public int countConnectedStates() {
+        return traverse(true);
+    }
+
+    private int traverse(boolean isUndirected) {
+        buildIncoming();
+
+        int stateCount = automaton.getStateCount();
+        AtomicLongArray visited = new AtomicLongArray((stateCount + 63) >>> 6);
+        int initialState = automaton.getInitialState();
+        tryVisit(visited, initialState);
+
+        int[] queue = {initialState};
+        long[] frontierBits = null;
+        int frontierSize = 1;
+        int reachedCount = 1;
+        long frontierEdges = getDegree(initialState, isUndirected);
+        long unexploredEdges = (isUndirected ? 2L : 1L) * automaton.getEdgeCount() - frontierEdges;
+        boolean isBottomUp = false;
+
+        while (frontierSize > 0) {
+            if (!isBottomUp && frontierEdges > unexploredEdges / ALPHA) {
+                frontierBits = toBits(queue, stateCount);
+                isBottomUp = true;
+            } else if (isBottomUp && frontierSize < stateCount / BETA) {
+                queue = toQueue(frontierBits, frontierSize);
+                isBottomUp = false;
+            }
+
+            LongAdder nextEdges = new LongAdder();
+            if (isBottomUp) {
+                long[] nextBits = new long[frontierBits.length];
+                frontierSize = bottomUpStep(frontierBits, nextBits, visited, isUndirected, nextEdges);
+                frontierBits = nextBits;
+            } else {
+                queue = topDownStep(queue, visited, isUndirected, nextEdges);
+                frontierSize = queue.length;
+            }
+
+            reachedCount += frontierSize;
+            frontierEdges = nextEdges.sum();
+            unexploredEdges -= frontierEdges;
+        }
+
+        return reachedCount;
+    }
+
+    /**
+     * Expand every state of the frontier; new states are collected per chunk and concatenated
+     */
+    private int[] topDownStep(int[] queue, AtomicLongArray visited, boolean isUndirected, LongAdder nextEdges) {
+        if (queue.length < SEQUENTIAL_FRONTIER) {
+            return expand(queue, 0, queue.length, visited, isUndirected, nextEdges);
+        }
+
+        int chunks = (queue.length + CHUNK_SIZE - 1) / CHUNK_SIZE;
+        int[][] found = new int[chunks][];
+        pool.submit(() -> IntStream.range(0, chunks).parallel().forEach(chunk -> found[chunk] = expand(queue,
+                chunk * CHUNK_SIZE, Math.min(queue.length, (chunk + 1) * CHUNK_SIZE), visited, isUndirected,
+                nextEdges))).join();
+
+        int size = 0;
+        for (int[] part : found) {
+            size += part.length;
+        }
+        int[] next = new int[size];
+        int position = 0;
+        for (int[] part : found) {
+            System.arraycopy(part, 0, next, position, part.length);
+            position += part.length;
+        }
+        return next;
+    }
+
+    private int[] expand(int[] queue, int from, int to, AtomicLongArray visited, boolean isUndirected,
+                         LongAdder nextEdges) {
+        int[] found = new int[Math.max(to - from, 16)];
+        int foundCount = 0;
+        long edges = 0;
+
+        for (int i = from; i < to; i++) {
+            int state = queue[i];
+            for (int edge = automaton.getOutStart(state); edge < automaton.getOutEnd(state); edge++) {
+                int next = automaton.getTarget(edge);
+                if (tryVisit(visited, next)) {
+                    found = append(found, foundCount++, next);
+                    edges += getDegree(next, isUndirected);
+                }
+            }
+            if (isUndirected) {
+                for (int edge = inOffsets[state]; edge < inOffsets[state + 1]; edge++) {
+                    int next = inSources[edge];
+                    if (tryVisit(visited, next)) {
+                        found = append(found, foundCount++, next);
+                        edges += getDegree(next, isUndirected);
+                    }
+                }
+            }
+        }
+
+        nextEdges.add(edges);
+        return Arrays.copyOf(found, foundCount);
+    }
+
+    /**
+     * Check every not visited state: if it has a neighbour in the frontier, it is in the next frontier.
+     * Every word of the bitmaps is processed by one task only
+     *
+     * @return number of states in the next frontier
+     */
+    private int bottomUpStep(long[] frontier, long[] next, AtomicLongArray visited, boolean isUndirected,
+                             LongAdder nextEdges) {
+        int stateCount = automaton.getStateCount();
+        return pool.submit(() -> IntStream.range(0, frontier.length).parallel().map(word -> {
+            long notVisited = ~visited.get(word);
+            if (word == frontier.length - 1 && (stateCount & 63) != 0) {
+                notVisited &= (1L << (stateCount & 63)) - 1;
+            }
+
+            long found = 0;
+            long edges = 0;
+            while (notVisited != 0) {
+                int bit = Long.numberOfTrailingZeros(notVisited);
+                notVisited &= notVisited - 1;
+                int state = (word << 6) + bit;
+                if (hasNeighbourInFrontier(state, frontier, isUndirected)) {
+                    found |= 1L << bit;
+                    edges += getDegree(state, isUndirected);
+                }
+            }
+
+            if (found != 0) {
+                visited.getAndAccumulate(word, found, (current, added) -> current | added);
+                next[word] = found;
+                nextEdges.add(edges);
+            }
+            return Long.bitCount(found);
+        }).sum()).join();
+    }
+
+    private boolean hasNeighbourInFrontier(int state, long[] frontier, boolean isUndirected) {
+        for (int edge = inOffsets[state]; edge < inOffsets[state + 1]; edge++) {
+            if (isSet(frontier, inSources[edge])) {
+                return true;
+            }
+        }
+        if (isUndirected) {
+            for (int edge = automaton.getOutStart(state); edge < automaton.getOutEnd(state); edge++) {
+                if (isSet(frontier, automaton.getTarget(edge))) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Mark the state as visited
+     *
+     * @return true - if the state was not visited before; Otherwise, false
+     */
+    private static boolean tryVisit(AtomicLongArray visited, int state) {
+        int word = state >>> 6;
+        long bit = 1L << state;
+        long current = visited.get(word);
+        while ((current & bit) == 0) {
+            if (visited.compareAndSet(word, current, current | bit)) {
+                return true;
+            }
+            current = visited.get(word);
+        }
+        return false;
+    }
+
+    private static boolean isSet(long[] bits, int state) {
+        return (bits[state >>> 6] & (1L << state)) != 0;
+    }
+
+    private int getDegree(int state, boolean isUndirected) {
+        int degree = automaton.getOutEnd(state) - automaton.getOutStart(state);
+        return isUndirected ? degree + inOffsets[state + 1] - inOffsets[state] : degree;
+    }
+
+    private static int[] append(int[] array, int size, int value) {
+        if (size == array.length) {
+            array = Arrays.copyOf(array, 2 * array.length);
+        }
+        array[size] = value;
+        return array;
+    }
+
+    private static long[] toBits(int[] queue, int stateCount) {
+        long[] bits = new long[(stateCount + 63) >>> 6];
+        for (int state : queue) {
+            bits[state >>> 6] |= 1L << state;
+        }
+        return bits;
+    }
+
+    private static int[] toQueue(long[] bits, int size) {
+        int[] queue = new int[size];
+        int position = 0;
+        for (int word = 0; word < bits.length; word++) {
+            long value = bits[word];
+            while (value != 0) {
+                queue[position++] = (word << 6) + Long.numberOfTrailingZeros(value);
+                value &= value - 1;
+            }
+        }
+        return queue;
+    }
+
+    /**
+     * Group all transitions by the destination state (counting sort)
+     */
+    private void buildIncoming() {
+        if (inOffsets != null) {
+            return;
+        }
+
+        int stateCount = automaton.getStateCount();
+        inOffsets = new int[stateCount + 1];
+        inSources = new int[automaton.getEdgeCount()];
+        for (int edge = 0; edge < automaton.getEdgeCount(); edge++) {
+            inOffsets[automaton.getTarget(edge) + 1]++;
+        }
+        for (int state = 0; state < stateCount; state++) {
+            inOffsets[state + 1] += inOffsets[state];
+        }
+
+        int[] position = Arrays.copyOf(inOffsets, stateCount);
+        for (int state = 0; state < stateCount; state++) {
+            for (int edge = automaton.getOutStart(state); edge < automaton.getOutEnd(state); edge++) {
+                inSources[position[automaton.getTarget(edge)]++] = state;
+            }
+        }
+    }
+}
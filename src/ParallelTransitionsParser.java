@@ -0,0 +1,299 @@
+import exceptions.*;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.IntStream;
+
+/**
+ * Parallel parser of the transitions section (the content of "trans=[...]" after "[").
+ * The section is split into chunks at commas: every comma separates two entries (transitions or trailing empty
+ * entries), so every chunk starts with an entry. Chunks are tokenized in parallel, names are resolved against
+ * the already built symbol tables, which are only read here. Transitions of the chunks are passed to the sink in
+ * the file order, and the first error in the file order is thrown, the same as by the sequential parsing.
+ */
+class ParallelTransitionsParser {
+    private static final int CHUNKS_PER_THREAD = 4;
+    private static final int END_OF_INPUT = -1;
+    /**
+     * Bytes from the first transition to the end of the input
+     */
+    private final ByteBuffer input;
+    private final SymbolTable states;
+    private final SymbolTable alphabet;
+    private final ForkJoinPool pool;
+    /**
+     * Number of names read in the chunks which were used
+     */
+    private long tokenCount = 0;
+
+    /**
+     * Result of the parsing of one chunk
+     */
+    private static class Chunk {
+        /**
+         * Transitions as the sequence of triples (source, token, destination)
+         */
+        private int[] transitions = new int[48];
+        private int transitionsCount = 0;
+        /**
+         * The first error of the chunk or null
+         */
+        private FsaException error = null;
+        /**
+         * True - if the list of transitions is finished in this chunk
+         */
+        private boolean isEndOfList = false;
+        /**
+         * True - if the chunk has at least one entry and if its first entry is empty (",," or ",]")
+         */
+        private boolean hasEntries = false;
+        private boolean isFirstEntryEmpty = false;
+        /**
+         * True - if the last entry of the chunk is empty, so the next non-empty entry is an error
+         */
+        private boolean isAfterEmptyEntry = false;
+        /**
+         * Bytes of the last read name
+         */
+        private byte[] token = new byte[64];
+        private long tokenCount = 0;
+
+        private void add(int source, int symbol, int destination) {
+            if (3 * transitionsCount == transitions.length) {
+                transitions = Arrays.copyOf(transitions, 2 * transitions.length);
+            }
+            transitions[3 * transitionsCount] = source;
+            transitions[3 * transitionsCount + 1] = symbol;
+            transitions[3 * transitionsCount + 2] = destination;
+            transitionsCount++;
+        }
+    }
+
+    /**
+     * @param input    bytes from the first transition to the end of the input
+     * @param states   symbol table of the states names
+     * @param alphabet symbol table of the transition tokens names
+     * @param pool     pool which parses chunks
+     */
+    ParallelTransitionsParser(ByteBuffer input, SymbolTable states, SymbolTable alphabet, ForkJoinPool pool) {
+        this.input = input;
+        this.states = states;
+        this.alphabet = alphabet;
+        this.pool = pool;
+    }
+
+    /**
+     * Parse all transitions and pass them to the sink
+     *
+     * @param transitions builder of the FSA or other destination of the transitions
+     * @throws IOException                       throws when transitions can not be written
+     * @throws InputMalformedException           throws when transitions do not follow the format
+     * @throws IncorrectStateException           throws when some state is not in the set of states
+     * @throws TransitionIsNotPresentedException throws when some token is not in the alphabet
+     */
+    void parse(TransitionSink transitions) throws IOException, InputMalformedException, IncorrectStateException,
+            TransitionIsNotPresentedException {
+        int[] starts = computeChunkStarts(CHUNKS_PER_THREAD * pool.getParallelism());
+        Chunk[] chunks = new Chunk[starts.length - 1];
+        pool.submit(() -> IntStream.range(0, chunks.length).parallel()
+                .forEach(i -> chunks[i] = parseChunk(starts[i], starts[i + 1]))).join();
+
+        boolean isAfterEmptyEntry = false;
+        for (Chunk chunk : chunks) {
+            tokenCount += chunk.tokenCount;
+            // If the previous chunk ends by an empty entry, the first transition of this chunk follows it
+            if (isAfterEmptyEntry && chunk.hasEntries && !chunk.isFirstEntryEmpty) {
+                throw new IncorrectStateException("");
+            }
+            if (chunk.error != null) {
+                rethrow(chunk.error);
+            }
+            transitions.addTransitions(chunk.transitions, chunk.transitionsCount);
+            if (chunk.isEndOfList) {
+                return;
+            }
+            if (chunk.hasEntries) {
+                isAfterEmptyEntry = chunk.isAfterEmptyEntry;
+            }
+        }
+
+        // The last chunk ends by the end of the input without "]"
+        throw new InputMalformedException();
+    }
+
+    /**
+     * @return number of names read in the chunks up to the end of the list or the first error
+     */
+    long getTokenCount() {
+        return tokenCount;
+    }
+
+    /**
+     * Split the input into nearly equal chunks; every chunk except the first one starts right after a comma
+     *
+     * @param count needed number of chunks
+     * @return starts of the chunks and the end of the input at the last position
+     */
+    private int[] computeChunkStarts(int count) {
+        int length = input.limit();
+        int[] starts = new int[count + 1];
+        for (int i = 1; i < count; i++) {
+            int position = Math.max((int) ((long) length * i / count), starts[i - 1]);
+            while (position < length && input.get(position) != ',') {
+                position++;
+            }
+            starts[i] = Math.min(position + 1, length);
+        }
+        starts[count] = length;
+        return starts;
+    }
+
+    /**
+     * Parse transitions state_1>token>state_2 separated by commas in the range [from, to).
+     * Parsing stops after the first error or the end of the list
+     */
+    private Chunk parseChunk(int from, int to) {
+        Chunk chunk = new Chunk();
+        int position = from;
+
+        while (position < to) {
+            int end = findDelimiter(position);
+            int delimiter = getDelimiter(end);
+            // Empty entries are allowed only at the end of the list, as in the sequential parsing
+            if (end == position && (delimiter == ',' || delimiter == ']')) {
+                chunk.tokenCount++;
+                chunk.isFirstEntryEmpty |= !chunk.hasEntries;
+                chunk.hasEntries = true;
+                chunk.isAfterEmptyEntry = true;
+                if (delimiter == ']') {
+                    if (isEndOfLine(end + 1)) {
+                        chunk.isEndOfList = true;
+                    } else {
+                        chunk.error = new InputMalformedException();
+                    }
+                    return chunk;
+                }
+                position = end + 1;
+                continue;
+            }
+            chunk.hasEntries = true;
+            if (chunk.isAfterEmptyEntry) {
+                chunk.error = new IncorrectStateException("");
+                return chunk;
+            }
+
+            int sourceState = lookup(states, chunk, position, end);
+            // If state_source from transition does not belong set of possible states
+            if (sourceState == SymbolTable.NOT_FOUND) {
+                chunk.error = new IncorrectStateException(decode(chunk, position, end));
+                return chunk;
+            }
+            if (getDelimiter(end) != '>') {
+                chunk.error = new InputMalformedException();
+                return chunk;
+            }
+
+            position = end + 1;
+            end = findDelimiter(position);
+            int transition = lookup(alphabet, chunk, position, end);
+            // If transition token from transition does not belong set of possible transitions
+            if (transition == SymbolTable.NOT_FOUND) {
+                chunk.error = new TransitionIsNotPresentedException(decode(chunk, position, end));
+                return chunk;
+            }
+            if (getDelimiter(end) != '>') {
+                chunk.error = new InputMalformedException();
+                return chunk;
+            }
+
+            position = end + 1;
+            end = findDelimiter(position);
+            int destState = lookup(states, chunk, position, end);
+            // If state_dest from transition does not belong set of possible states
+            if (destState == SymbolTable.NOT_FOUND) {
+                chunk.error = new IncorrectStateException(decode(chunk, position, end));
+                return chunk;
+            }
+
+            chunk.add(sourceState, transition, destState);
+
+            delimiter = getDelimiter(end);
+            if (delimiter == ']' && isEndOfLine(end + 1)) {
+                chunk.isEndOfList = true;
+                return chunk;
+            }
+            if (delimiter != ',') {
+                chunk.error = new InputMalformedException();
+                return chunk;
+            }
+            position = end + 1;
+        }
+
+        return chunk;
+    }
+
+    /**
+     * @return position of the first delimiter (',', '>', ']' or end of line) or the end of the input
+     */
+    private int findDelimiter(int position) {
+        int length = input.limit();
+        while (position < length) {
+            byte c = input.get(position);
+            if (c == ',' || c == '>' || c == ']' || c == '\n') {
+                return position;
+            }
+            position++;
+        }
+        return position;
+    }
+
+    private int getDelimiter(int position) {
+        return position < input.limit() ? input.get(position) : END_OF_INPUT;
+    }
+
+    /**
+     * Check that the position is the end of the line: "\n", "\r\n", "\r" before the end of the input
+     * or the end of the input
+     */
+    private boolean isEndOfLine(int position) {
+        int c = getDelimiter(position);
+        if (c == '\r') {
+            c = getDelimiter(position + 1);
+        }
+        return c == '\n' || c == END_OF_INPUT;
+    }
+
+    /**
+     * Copy the name in the range [from, to) into the token of the chunk and find its id; the symbol tables are
+     * only read, so they are shared by all chunks
+     */
+    private int lookup(SymbolTable table, Chunk chunk, int from, int to) {
+        if (to - from > chunk.token.length) {
+            chunk.token = new byte[Math.max(to - from, 2 * chunk.token.length)];
+        }
+        chunk.tokenCount++;
+        input.get(from, chunk.token, 0, to - from);
+        return table.getId(chunk.token, 0, to - from);
+    }
+
+    /**
+     * @return the last looked up name in the range [from, to) for the error message
+     */
+    private static String decode(Chunk chunk, int from, int to) {
+        return new String(chunk.token, 0, to - from, StandardCharsets.UTF_8);
+    }
+
+    private static void rethrow(FsaException error) throws InputMalformedException, IncorrectStateException,
+            TransitionIsNotPresentedException {
+        if (error instanceof IncorrectStateException e) {
+            throw e;
+        }
+        if (error instanceof TransitionIsNotPresentedException e) {
+            throw e;
+        }
+        throw (InputMalformedException) error;
+    }
+}
@@ -0,0 +1,131 @@
+import java.lang.management.ManagementFactory;
+
+/**
+ * Recorder of the phases of one validation. Every phase is the JFR event "fsa.ValidationPhase" and, if metrics
+ * are collected, its time and allocated bytes are added to them. When metrics are not collected and JFR is not
+ * recording, only the checks of the event are left.
+ * <p>
+ * Allocated bytes are counted for the validating thread only (HotSpot extension of the ThreadMXBean).
+ */
+class PhaseRecorder {
+    private static final com.sun.management.ThreadMXBean THREADS = getThreads();
+    /**
+     * Collected metrics or null, if they are not collected
+     */
+    private final ValidationMetrics metrics;
+    private ValidationPhaseEvent event;
+    private long startNanos;
+    private long startAllocatedBytes;
+
+    /**
+     * @param metrics collected metrics or null
+     */
+    PhaseRecorder(ValidationMetrics metrics) {
+        this.metrics = metrics;
+    }
+
+    /**
+     * Start the next phase
+     */
+    void start() {
+        event = new ValidationPhaseEvent();
+        event.begin();
+        if (metrics != null) {
+            startAllocatedBytes = getAllocatedBytes();
+            startNanos = System.nanoTime();
+        }
+    }
+
+    /**
+     * Finish the current phase
+     *
+     * @param phase current phase
+     * @param items processed items, e.g. visited states
+     */
+    void finish(ValidationMetrics.Phase phase, long items) {
+        finish(phase, items, 0, 0);
+    }
+
+    /**
+     * Finish the parsing: the time of reading is separated from the parsing
+     *
+     * @param parser used parser, even if it failed
+     */
+    void finishParsing(FsaParser parser) {
+        if (metrics != null) {
+            metrics.add(ValidationMetrics.Counter.VALIDATIONS, 1);
+            metrics.add(ValidationMetrics.Counter.BYTES_READ, parser.getBytesRead());
+            metrics.add(ValidationMetrics.Counter.TOKENS, parser.getTokenCount());
+        }
+        finish(ValidationMetrics.Phase.PARSE, parser.getTokenCount(), parser.getBytesRead(), parser.getReadNanos());
+    }
+
+    /**
+     * Finish the loading of the binary FSA: it is measured as the parsing
+     *
+     * @param bytes size of the mapped file
+     */
+    void finishLoading(long bytes) {
+        if (metrics != null) {
+            metrics.add(ValidationMetrics.Counter.VALIDATIONS, 1);
+            metrics.add(ValidationMetrics.Counter.BYTES_READ, bytes);
+        }
+        finish(ValidationMetrics.Phase.PARSE, 0, bytes, 0);
+    }
+
+    /**
+     * Count the size of the parsed FSA
+     *
+     * @param automaton parsed FSA
+     */
+    void countAutomaton(Automaton automaton) {
+        if (metrics != null) {
+            metrics.add(ValidationMetrics.Counter.STATES, automaton.getStateCount());
+            metrics.add(ValidationMetrics.Counter.SYMBOLS, automaton.getSymbolCount());
+            metrics.add(ValidationMetrics.Counter.EDGES, automaton.getEdgeCount());
+        }
+    }
+
+    /**
+     * Count states visited by the traversal
+     *
+     * @param count number of states
+     */
+    void countVisitedStates(long count) {
+        if (metrics != null) {
+            metrics.add(ValidationMetrics.Counter.VISITED_STATES, count);
+        }
+    }
+
+    private void finish(ValidationMetrics.Phase phase, long items, long bytesRead, long readNanos) {
+        if (metrics != null) {
+            long nanos = System.nanoTime() - startNanos;
+            long allocatedBytes = getAllocatedBytes() - startAllocatedBytes;
+            if (readNanos > 0) {
+                metrics.recordPhase(ValidationMetrics.Phase.READ, readNanos, 0);
+            }
+            metrics.recordPhase(phase, nanos - readNanos, allocatedBytes);
+        }
+
+        event.end();
+        if (event.shouldCommit()) {
+            event.phase = phase.getName();
+            event.items = items;
+            event.bytesRead = bytesRead;
+            event.readTime = readNanos;
+            event.commit();
+        }
+    }
+
+    private static long getAllocatedBytes() {
+        return THREADS == null ? 0 : THREADS.getCurrentThreadAllocatedBytes();
+    }
+
+    private static com.sun.management.ThreadMXBean getThreads() {
+        if (ManagementFactory.getThreadMXBean() instanceof com.sun.management.ThreadMXBean threads
+                && threads.isThreadAllocatedMemorySupported() && threads.isThreadAllocatedMemoryEnabled()) {
+            return threads;
+        }
+        return null;
+    }
+}
@@ -1,5 +1,7 @@
 import exceptions.WarningDoesNotExistException;
 
+import java.util.Set;
+
 /**
  * Class which represent the final report for the FSA
  */
@@ -8,24 +10,50 @@ public class ReportFormation {
     private static final String W2 = "W2: Some states are not reachable from the initial state";
     private static final String W3 = "W3: FSA is nondeterministic";
     private static final String[] warningsMessages = {W1, W2, W3};
-    private static final boolean[] warningsAppearance = {false, false, false};
-    private static boolean completeness;
+    private final boolean[] warningsAppearance = {false, false, false};
+    private boolean completeness;
+    /**
+     * Selected checks; only their answers are in the final output
+     */
+    private final Set<ValidationCheck> checks;
+
+    public ReportFormation() {
+        this(ValidationCheck.ALL);
+    }
+
+    /**
+     * @param checks selected checks
+     */
+    public ReportFormation(Set<ValidationCheck> checks) {
+        this.checks = checks;
+    }
 
     /**
      * Mark that warning should be in the final output
      *
      * @param warningNumber integer number of warning
+     * @throws WarningDoesNotExistException throws when there is no warning with this number
      */
     public void markWarning(int warningNumber) {
-        try {
-            if (!(1 <= warningNumber && warningNumber <= 3)) {
-                throw new WarningDoesNotExistException();
-            }
+        checkWarningNumber(warningNumber);
+        warningsAppearance[warningNumber - 1] = true;
+    }
+
+    /**
+     * Check if the warning is marked
+     *
+     * @param warningNumber integer number of warning
+     * @return true - if the warning should be in the final output; Otherwise, false
+     * @throws WarningDoesNotExistException throws when there is no warning with this number
+     */
+    public boolean isWarningMarked(int warningNumber) {
+        checkWarningNumber(warningNumber);
+        return warningsAppearance[warningNumber - 1];
+    }
 
-            warningsAppearance[warningNumber - 1] = true;
-        } catch (WarningDoesNotExistException e) {
-            System.out.println(e.getMessage());
-            System.exit(0);
+    private void checkWarningNumber(int warningNumber) {
+        if (!(1 <= warningNumber && warningNumber <= 3)) {
+            throw new WarningDoesNotExistException();
         }
     }
 
@@ -38,11 +66,17 @@ public class ReportFormation {
         completeness = isComplete;
     }
 
+    public boolean isComplete() {
+        return completeness;
+    }
+
     @Override
     public String toString() {
-        StringBuilder outputString = new StringBuilder("FSA is ");
+        StringBuilder outputString = new StringBuilder();
 
-        outputString.append(completeness ? "complete\n" : "incomplete\n");
+        if (checks.contains(ValidationCheck.COMPLETENESS)) {
+            outputString.append("FSA is ").append(completeness ? "complete\n" : "incomplete\n");
+        }
 
         boolean areWarningsAppear = false;
         StringBuilder warningMessagesText = new StringBuilder("Warning:\n");
@@ -0,0 +1,374 @@
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.nio.file.attribute.FileTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Stream;
+
+/**
+ * Cache of the validation results keyed by the hash of the input content. The raw bytes are hashed: the parser
+ * does not treat "\r\n" and "\n" the same way, so files which differ only in line endings may have different
+ * results. Results are stored in the bounded in-memory LRU and, optionally, in the directory on disk, which is
+ * bounded by its size in bytes: the least recently used entries (by the modification time, which is updated on
+ * every hit) are deleted first. Unchanged inputs are not parsed and not checked again.
+ * <p>
+ * The file is mapped once: the key is the hash of the mapped bytes, and on a miss the same bytes are parsed,
+ * so the stored result always belongs to the hashed content. The file should not be changed in place while it
+ * is validated (replacing it by a rename is safe). Files larger than 2 GiB are validated without the cache.
+ * <p>
+ * The key is the 128-bit MurmurHash3, which is much faster than the reading of the file. It is not
+ * cryptographic: inputs crafted to collide would share their results, so the cache is for trusted inputs.
+ */
+public class ResultCache {
+    private static final String ENTRY_EXTENSION = ".result";
+    /**
+     * Default maximum size of the entries on disk in bytes
+     */
+    public static final long DEFAULT_DISK_LIMIT = 256L << 20;
+    /**
+     * Prefix of every key; it should be changed with the format of results or of the key,
+     * so old entries on disk are not used
+     */
+    private static final String KEY_VERSION = "v1-";
+    /**
+     * Constants of MurmurHash3 x64 128
+     */
+    private static final long C1 = 0x87c37b91114253d5L;
+    private static final long C2 = 0x4cf5ad432745937fL;
+    private final int capacity;
+    /**
+     * Directory of the on-disk tier or null, if there is no such tier
+     */
+    private final Path directory;
+    private final long diskLimit;
+    /**
+     * Approximate size of the entries on disk; it is recomputed from the directory by every eviction
+     */
+    private final AtomicLong diskSize = new AtomicLong();
+    private final Object diskEvictionLock = new Object();
+    /**
+     * Results from the key; iteration order is the access order, so the first entry is the least recently used
+     */
+    private final LinkedHashMap<String, String> entries;
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong diskHits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong evictions = new AtomicLong();
+    private final AtomicLong diskEvictions = new AtomicLong();
+
+    /**
+     * @param capacity  maximum number of results in memory
+     * @param directory directory of the on-disk tier or null
+     * @throws IOException throws when directory can not be created
+     */
+    public ResultCache(int capacity, Path directory) throws IOException {
+        this(capacity, directory, DEFAULT_DISK_LIMIT);
+    }
+
+    /**
+     * @param capacity  maximum number of results in memory
+     * @param directory directory of the on-disk tier or null
+     * @param diskLimit maximum size of the entries on disk in bytes
+     * @throws IOException throws when directory can not be created or read
+     */
+    public ResultCache(int capacity, Path directory, long diskLimit) throws IOException {
+        this.capacity = capacity;
+        this.directory = directory;
+        this.diskLimit = diskLimit;
+        entries = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, String> eldest) {
+                boolean isEvicted = size() > ResultCache.this.capacity;
+                if (isEvicted) {
+                    evictions.incrementAndGet();
+                }
+                return isEvicted;
+            }
+        };
+
+        if (directory != null) {
+            Files.createDirectories(directory);
+            evictFromDisk();
+        }
+    }
+
+    /**
+     * Get the result from the cache or validate the file and remember its result
+     *
+     * @param input input file in the format of "fsa.txt"
+     * @return result of the validation
+     * @throws IOException throws when input can not be read
+     */
+    public ValidationResult validate(Path input) throws IOException {
+        return validate(input, null);
+    }
+
+    /**
+     * Get the result from the cache or validate the file and remember its result. Only validated files are
+     * measured
+     *
+     * @param input   input file in the format of "fsa.txt"
+     * @param metrics collected metrics or null
+     * @return result of the validation
+     * @throws IOException throws when input can not be read
+     */
+    public ValidationResult validate(Path input, ValidationMetrics metrics) throws IOException {
+        return validate(input, metrics, ValidationCheck.ALL);
+    }
+
+    /**
+     * Get the result of the selected checks from the cache or validate the file and remember its result.
+     * Results of different selections are different entries
+     *
+     * @param input   input file in the format of "fsa.txt"
+     * @param metrics collected metrics or null
+     * @param checks  selected checks
+     * @return result of the validation
+     * @throws IOException throws when input can not be read
+     */
+    public ValidationResult validate(Path input, ValidationMetrics metrics, Set<ValidationCheck> checks)
+            throws IOException {
+        try (FileChannel channel = FileChannel.open(input)) {
+            if (channel.size() > Integer.MAX_VALUE) {
+                // Too large to be mapped by one buffer
+                return FsaValidator.validate(channel, metrics, checks);
+            }
+            ByteBuffer content = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            String key = computeKey(content, checks);
+
+            String text = getFromMemory(key);
+            if (text != null) {
+                hits.incrementAndGet();
+                return ValidationResult.ofText(text);
+            }
+
+            text = getFromDisk(key);
+            if (text != null) {
+                diskHits.incrementAndGet();
+                putToMemory(key, text);
+                return ValidationResult.ofText(text);
+            }
+
+            misses.incrementAndGet();
+            ValidationResult result = FsaValidator.validate(content, metrics, checks);
+            putToMemory(key, result.toString());
+            putToDisk(key, result.toString());
+            return result;
+        }
+    }
+
+    private synchronized String getFromMemory(String key) {
+        return entries.get(key);
+    }
+
+    private synchronized void putToMemory(String key, String text) {
+        entries.put(key, text);
+    }
+
+    private String getFromDisk(String key) throws IOException {
+        if (directory == null) {
+            return null;
+        }
+
+        Path entry = directory.resolve(key + ENTRY_EXTENSION);
+        try {
+            String text = Files.readString(entry);
+            Files.setLastModifiedTime(entry, FileTime.fromMillis(System.currentTimeMillis()));
+            return text;
+        } catch (NoSuchFileException e) {
+            // Not cached or evicted right now
+            return null;
+        }
+    }
+
+    /**
+     * Write the entry through the temporary file, so concurrent readers never see a partial entry
+     */
+    private void putToDisk(String key, String text) throws IOException {
+        if (directory == null) {
+            return;
+        }
+
+        Path temporary = Files.createTempFile(directory, key, ".tmp");
+        Files.writeString(temporary, text);
+        long size = Files.size(temporary);
+        try {
+            Files.move(temporary, directory.resolve(key + ENTRY_EXTENSION), StandardCopyOption.ATOMIC_MOVE);
+        } catch (AtomicMoveNotSupportedException e) {
+            Files.move(temporary, directory.resolve(key + ENTRY_EXTENSION), StandardCopyOption.REPLACE_EXISTING);
+        }
+        if (diskSize.addAndGet(size) > diskLimit) {
+            evictFromDisk();
+        }
+    }
+
+    /**
+     * Delete the least recently used entries on disk until their size is within the limit. The size is counted
+     * from the directory itself, so entries of other processes which share the directory are counted too
+     */
+    private void evictFromDisk() throws IOException {
+        synchronized (diskEvictionLock) {
+            List<DiskEntry> diskEntries = new ArrayList<>();
+            long size = 0;
+            try (Stream<Path> paths = Files.list(directory)) {
+                for (Path path : (Iterable<Path>) paths::iterator) {
+                    if (!path.getFileName().toString().endsWith(ENTRY_EXTENSION)) {
+                        continue;
+                    }
+                    try {
+                        BasicFileAttributes attributes = Files.readAttributes(path, BasicFileAttributes.class);
+                        diskEntries.add(new DiskEntry(path, attributes.size(),
+                                attributes.lastModifiedTime().toMillis()));
+                        size += attributes.size();
+                    } catch (NoSuchFileException e) {
+                        // Deleted by another process
+                    }
+                }
+            }
+
+            if (size > diskLimit) {
+                diskEntries.sort(Comparator.comparingLong(DiskEntry::modified));
+                for (DiskEntry entry : diskEntries) {
+                    if (size <= diskLimit) {
+                        break;
+                    }
+                    Files.deleteIfExists(entry.path());
+                    size -= entry.size();
+                    diskEvictions.incrementAndGet();
+                }
+            }
+            diskSize.set(size);
+        }
+    }
+
+    /**
+     * Compute the hash of the raw content and add the selected checks, if not all checks are selected
+     *
+     * @param content content of the input file; its position is not changed
+     * @param checks  selected checks
+     * @return key which can be used as the name of the file
+     */
+    static String computeKey(ByteBuffer content, Set<ValidationCheck> checks) {
+        String key = KEY_VERSION + hash(content);
+        if (checks.equals(ValidationCheck.ALL)) {
+            return key;
+        }
+        int selection = 0;
+        for (ValidationCheck check : checks) {
+            selection |= 1 << check.ordinal();
+        }
+        return key + "-" + Integer.toHexString(selection);
+    }
+
+    /**
+     * MurmurHash3 x64 128 of the bytes from the position to the limit with the seed 0
+     *
+     * @return hexadecimal hash: h1 and h2 of the algorithm
+     */
+    static String hash(ByteBuffer content) {
+        ByteBuffer data = content.slice().order(ByteOrder.LITTLE_ENDIAN);
+        int length = data.remaining();
+        long h1 = 0;
+        long h2 = 0;
+
+        int blocksEnd = length & ~15;
+        for (int i = 0; i < blocksEnd; i += 16) {
+            h1 ^= mixK1(data.getLong(i));
+            h1 = Long.rotateLeft(h1, 27) + h2;
+            h1 = h1 * 5 + 0x52dce729;
+            h2 ^= mixK2(data.getLong(i + 8));
+            h2 = Long.rotateLeft(h2, 31) + h1;
+            h2 = h2 * 5 + 0x38495ab5;
+        }
+
+        // The last bytes which do not make the whole block
+        long k1 = 0;
+        long k2 = 0;
+        for (int i = length - 1; i >= blocksEnd; i--) {
+            int shift = 8 * ((i - blocksEnd) & 7);
+            if (i - blocksEnd >= 8) {
+                k2 |= (data.get(i) & 0xFFL) << shift;
+            } else {
+                k1 |= (data.get(i) & 0xFFL) << shift;
+            }
+        }
+        if (length - blocksEnd > 8) {
+            h2 ^= mixK2(k2);
+        }
+        if (length > blocksEnd) {
+            h1 ^= mixK1(k1);
+        }
+
+        h1 ^= length;
+        h2 ^= length;
+        h1 += h2;
+        h2 += h1;
+        h1 = finalizeMix(h1);
+        h2 = finalizeMix(h2);
+        h1 += h2;
+        h2 += h1;
+        return String.format("%016x%016x", h1, h2);
+    }
+
+    private static long mixK1(long k1) {
+        return Long.rotateLeft(k1 * C1, 31) * C2;
+    }
+
+    private static long mixK2(long k2) {
+        return Long.rotateLeft(k2 * C2, 33) * C1;
+    }
+
+    private static long finalizeMix(long k) {
+        k ^= k >>> 33;
+        k *= 0xff51afd7ed558ccdL;
+        k ^= k >>> 33;
+        k *= 0xc4ceb9fe1a85ec53L;
+        k ^= k >>> 33;
+        return k;
+    }
+
+    public long getHits() {
+        return hits.get();
+    }
+
+    public long getDiskHits() {
+        return diskHits.get();
+    }
+
+    public long getMisses() {
+        return misses.get();
+    }
+
+    public long getEvictions() {
+        return evictions.get();
+    }
+
+    public long getDiskEvictions() {
+        return diskEvictions.get();
+    }
+
+    @Override
+    public String toString() {
+        return "Cache hits: " + getHits() + ", disk hits: " + getDiskHits() + ", misses: " + getMisses()
+                + ", evictions: " + getEvictions() + ", disk evictions: " + getDiskEvictions();
+    }
+
+    /**
+     * File of the on-disk tier with its size and the time of the last usage
+     */
+    private record DiskEntry(Path path, long size, long modified) {
+    }
+}
@@ -0,0 +1,219 @@
+import java.util.Arrays;
+
+/**
+ * Structure of the FSA found by one iterative pass of the Tarjan algorithm: strongly connected components,
+ * states which are not reachable from the initial state and states which can not reach any final state
+ * (dead states).
+ * <p>
+ * The depth-first search starts from the initial state, so the states of its first tree are exactly the reachable
+ * states; other states are searched after it. Components are completed in the reverse topological order: every
+ * transition from the completed component leads into the component completed earlier or into itself. Hence the
+ * component reaches a final state if it contains one or has a transition into the component which reaches
+ * a final state, and it is known at the completion without reverse transitions.
+ * <p>
+ * The search keeps its own stack of states and positions in their transitions, so it does not depend on
+ * the call stack depth; the memory is a few int arrays of the number of states.
+ */
+public class StructuralAnalysis {
+    private static final int NOT_VISITED = 0;
+    /**
+     * Component of every state; components are numbered in the order of completion
+     */
+    private final int[] components;
+    /**
+     * States ordered by the component: states of the component c are [componentStarts[c], componentStarts[c + 1])
+     */
+    private final int[] componentStates;
+    private int[] componentStarts = new int[16];
+    private int componentCount = 0;
+    private final int reachableCount;
+    /**
+     * Index of every state in the depth-first search; indexes of the first tree (reachable states) are
+     * 1..reachableCount
+     */
+    private final int[] indexes;
+    /**
+     * Bitmask of the components which reach some final state
+     */
+    private long[] liveComponents = new long[1];
+
+    /**
+     * Analyze the FSA
+     *
+     * @param automaton parsed FSA
+     */
+    public StructuralAnalysis(Automaton automaton) {
+        int stateCount = automaton.getStateCount();
+        components = new int[stateCount];
+        Arrays.fill(components, -1);
+        // Front: states of the completed components; back: the stack of the Tarjan algorithm
+        componentStates = new int[stateCount];
+
+        long[] finalStates = new long[(stateCount + 63) >>> 6];
+        for (int i = 0; i < automaton.getFinalStateCount(); i++) {
+            int state = automaton.getFinalState(i);
+            finalStates[state >>> 6] |= 1L << state;
+        }
+        // States with a transition into the component which reaches some final state
+        long[] reachesLive = new long[(stateCount + 63) >>> 6];
+
+        int[] indexes = new int[stateCount];
+        int[] lowLinks = new int[stateCount];
+        int[] callStates = new int[stateCount];
+        int[] callEdges = new int[stateCount];
+        int index = 0;
+        int stackBottom = stateCount;
+        int reached = 0;
+
+        int initialState = automaton.getInitialState();
+        for (int i = initialState == Automaton.NO_STATE ? 0 : -1; i < stateCount; i++) {
+            int root = i < 0 ? initialState : i;
+            if (indexes[root] != NOT_VISITED) {
+                continue;
+            }
+
+            int callCount = 0;
+            indexes[root] = lowLinks[root] = ++index;
+            componentStates[--stackBottom] = root;
+            callStates[callCount] = root;
+            callEdges[callCount++] = automaton.getOutStart(root);
+            while (callCount > 0) {
+                int state = callStates[callCount - 1];
+                int edge = callEdges[callCount - 1];
+                if (edge < automaton.getOutEnd(state)) {
+                    callEdges[callCount - 1]++;
+                    int target = automaton.getTarget(edge);
+                    if (indexes[target] == NOT_VISITED) {
+                        indexes[target] = lowLinks[target] = ++index;
+                        componentStates[--stackBottom] = target;
+                        callStates[callCount] = target;
+                        callEdges[callCount++] = automaton.getOutStart(target);
+                    } else if (components[target] < 0) {
+                        // The target is on the stack, so it is in the same component
+                        lowLinks[state] = Math.min(lowLinks[state], indexes[target]);
+                    } else if (isLiveComponent(components[target])) {
+                        reachesLive[state >>> 6] |= 1L << state;
+                    }
+                    continue;
+                }
+
+                callCount--;
+                if (lowLinks[state] == indexes[state]) {
+                    stackBottom = completeComponent(state, stackBottom, finalStates, reachesLive);
+                }
+                if (callCount > 0) {
+                    int parent = callStates[callCount - 1];
+                    lowLinks[parent] = Math.min(lowLinks[parent], lowLinks[state]);
+                    if (components[state] >= 0 && isLiveComponent(components[state])) {
+                        reachesLive[parent >>> 6] |= 1L << parent;
+                    }
+                }
+            }
+
+            if (root == initialState) {
+                reached = index;
+            }
+        }
+        reachableCount = reached;
+        this.indexes = indexes;
+    }
+
+    /**
+     * Pop the component of the root from the stack to the front of componentStates
+     *
+     * @return new bottom of the stack
+     */
+    private int completeComponent(int root, int stackBottom, long[] finalStates, long[] reachesLive) {
+        int component = componentCount++;
+        if (componentCount == componentStarts.length) {
+            componentStarts = Arrays.copyOf(componentStarts, 2 * componentStarts.length);
+        }
+        if (component >>> 6 == liveComponents.length) {
+            liveComponents = Arrays.copyOf(liveComponents, 2 * liveComponents.length);
+        }
+
+        int start = componentStarts[component];
+        int end = start;
+        boolean isLive = false;
+        int state;
+        do {
+            state = componentStates[stackBottom++];
+            componentStates[end++] = state;
+            components[state] = component;
+            isLive |= ((finalStates[state >>> 6] | reachesLive[state >>> 6]) & 1L << state) != 0;
+        } while (state != root);
+
+        componentStarts[component + 1] = end;
+        if (isLive) {
+            liveComponents[component >>> 6] |= 1L << component;
+        }
+        return stackBottom;
+    }
+
+    private boolean isLiveComponent(int component) {
+        return (liveComponents[component >>> 6] & 1L << component) != 0;
+    }
+
+    /**
+     * @return number of strongly connected components
+     */
+    public int getComponentCount() {
+        return componentCount;
+    }
+
+    /**
+     * @param state id of the state
+     * @return component of the state; components are in the reverse topological order, so transitions lead only
+     * to the same or smaller components
+     */
+    public int getComponent(int state) {
+        return components[state];
+    }
+
+    /**
+     * @param component id of the component
+     * @return index of the first state of the component in getComponentState()
+     */
+    public int getComponentStart(int component) {
+        return componentStarts[component];
+    }
+
+    /**
+     * @param component id of the component
+     * @return index after the last state of the component in getComponentState()
+     */
+    public int getComponentEnd(int component) {
+        return componentStarts[component + 1];
+    }
+
+    /**
+     * @param index index from [getComponentStart(c), getComponentEnd(c))
+     * @return state of the component
+     */
+    public int getComponentState(int index) {
+        return componentStates[index];
+    }
+
+    /**
+     * @return number of states reachable from the initial state
+     */
+    public int getReachableCount() {
+        return reachableCount;
+    }
+
+    /**
+     * @param state id of the state
+     * @return true - if the state is reachable from the initial state; Otherwise, false
+     */
+    public boolean isReachable(int state) {
+        return indexes[state] <= reachableCount;
+    }
+
+    /**
+     * @param state id of the state
+     * @return true - if some final state is reachable from the state; Otherwise, false (dead state)
+     */
+    public boolean isLive(int state) {
+        return isLiveComponent(components[state]);
+    }
+}
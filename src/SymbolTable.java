@@ -0,0 +1,205 @@
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Objects;
+
+/**
+ * Symbol table of the FSA names (states or transition tokens). Every added name receives a dense integer id,
+ * which is equal to the order of its appearance in the input file.
+ * <p>
+ * Names are kept in the open-addressing hash table (linear probing) keyed by their UTF-8 bytes, so the parser
+ * looks names up right on the slices of its buffer, and only one String is created for every distinct name.
+ */
+public class SymbolTable {
+    /**
+     * Value which is returned if the name is not presented in the table
+     */
+    public static final int NOT_FOUND = -1;
+    private static final int INITIAL_CAPACITY = 16;
+    /**
+     * Slots of the hash table: id of the first appearance of the name plus one or 0 for the empty slot
+     */
+    private int[] slots = new int[2 * INITIAL_CAPACITY];
+    private int distinctCount = 0;
+    /**
+     * Array of all added names, index of the name is its id
+     */
+    private String[] names = new String[INITIAL_CAPACITY];
+    private int size = 0;
+    /**
+     * Hash, start and length of the UTF-8 bytes of every name, index is its id
+     */
+    private int[] hashes = new int[INITIAL_CAPACITY];
+    private int[] starts = new int[INITIAL_CAPACITY];
+    private int[] lengths = new int[INITIAL_CAPACITY];
+    /**
+     * UTF-8 bytes of all distinct names one after another
+     */
+    private byte[] bytes = new byte[8 * INITIAL_CAPACITY];
+    private int bytesLength = 0;
+
+    /**
+     * Add a new name to the table. If the name is already presented, lookups still return the id of its first
+     * appearance
+     *
+     * @param name name of the state or transition token
+     * @return id of the added name
+     */
+    public int add(String name) {
+        byte[] encoded = name.getBytes(StandardCharsets.UTF_8);
+        int hash = hash(encoded, 0, encoded.length);
+        int first = find(hash, name);
+        return first == NOT_FOUND ? addDistinct(name, hash, encoded, 0, encoded.length) : addRepeated(first);
+    }
+
+    /**
+     * Add a new name given by its UTF-8 bytes. The String of the name is created only if the name is new
+     *
+     * @param source array with the bytes of the name
+     * @param from   start of the name in the array
+     * @param length number of bytes of the name
+     * @return id of the added name
+     */
+    public int add(byte[] source, int from, int length) {
+        int hash = hash(source, from, length);
+        int first = find(hash, source, from, length);
+        if (first != NOT_FOUND) {
+            return addRepeated(first);
+        }
+        return addDistinct(new String(source, from, length, StandardCharsets.UTF_8), hash, source, from, length);
+    }
+
+    /**
+     * Get id of the name in O(1)
+     *
+     * @param name needed name
+     * @return id - if name is presented in the table; Otherwise, NOT_FOUND
+     */
+    public int getId(String name) {
+        byte[] encoded = name.getBytes(StandardCharsets.UTF_8);
+        return find(hash(encoded, 0, encoded.length), name);
+    }
+
+    /**
+     * Get id of the name given by its UTF-8 bytes in O(1) without any allocation
+     *
+     * @param source array with the bytes of the name
+     * @param from   start of the name in the array
+     * @param length number of bytes of the name
+     * @return id - if name is presented in the table; Otherwise, NOT_FOUND
+     */
+    public int getId(byte[] source, int from, int length) {
+        return find(hash(source, from, length), source, from, length);
+    }
+
+    /**
+     * Get name by its id
+     *
+     * @param id id of the name
+     * @return name which corresponds to the id
+     */
+    public String getName(int id) {
+        return names[Objects.checkIndex(id, size)];
+    }
+
+    /**
+     * @return number of the added names
+     */
+    public int size() {
+        return size;
+    }
+
+    private int find(int hash, String name) {
+        int mask = slots.length - 1;
+        for (int slot = hash & mask; slots[slot] != 0; slot = (slot + 1) & mask) {
+            int id = slots[slot] - 1;
+            if (hashes[id] == hash && names[id].equals(name)) {
+                return id;
+            }
+        }
+        return NOT_FOUND;
+    }
+
+    private int find(int hash, byte[] source, int from, int length) {
+        int mask = slots.length - 1;
+        for (int slot = hash & mask; slots[slot] != 0; slot = (slot + 1) & mask) {
+            int id = slots[slot] - 1;
+            if (hashes[id] == hash && Arrays.equals(bytes, starts[id], starts[id] + lengths[id],
+                    source, from, from + length)) {
+                return id;
+            }
+        }
+        return NOT_FOUND;
+    }
+
+    /**
+     * Add the name which is already presented: it shares the String and the bytes of its first appearance
+     */
+    private int addRepeated(int first) {
+        int id = reserveId(names[first], hashes[first]);
+        starts[id] = starts[first];
+        lengths[id] = lengths[first];
+        return id;
+    }
+
+    private int addDistinct(String name, int hash, byte[] source, int from, int length) {
+        int id = reserveId(name, hash);
+        if (bytesLength + length > bytes.length) {
+            bytes = Arrays.copyOf(bytes, Math.max(2 * bytes.length, bytesLength + length));
+        }
+        System.arraycopy(source, from, bytes, bytesLength, length);
+        starts[id] = bytesLength;
+        lengths[id] = length;
+        bytesLength += length;
+
+        if (2 * (distinctCount + 1) > slots.length) {
+            rehash(2 * slots.length);
+        }
+        insert(id);
+        distinctCount++;
+        return id;
+    }
+
+    private int reserveId(String name, int hash) {
+        if (size == names.length) {
+            names = Arrays.copyOf(names, 2 * size);
+            hashes = Arrays.copyOf(hashes, 2 * size);
+            starts = Arrays.copyOf(starts, 2 * size);
+            lengths = Arrays.copyOf(lengths, 2 * size);
+        }
+        names[size] = name;
+        hashes[size] = hash;
+        return size++;
+    }
+
+    private void insert(int id) {
+        int mask = slots.length - 1;
+        int slot = hashes[id] & mask;
+        while (slots[slot] != 0) {
+            slot = (slot + 1) & mask;
+        }
+        slots[slot] = id + 1;
+    }
+
+    private void rehash(int capacity) {
+        int[] oldSlots = slots;
+        slots = new int[capacity];
+        for (int slot : oldSlots) {
+            if (slot != 0) {
+                insert(slot - 1);
+            }
+        }
+    }
+
+    /**
+     * Polynomial hash of the bytes with the final mixing, so linear probing works well on similar names
+     */
+    private static int hash(byte[] source, int from, int length) {
+        int hash = 0;
+        for (int i = from; i < from + length; i++) {
+            hash = 31 * hash + source[i];
+        }
+        hash ^= hash >>> 16;
+        hash *= 0x85EBCA6B;
+        return hash ^ (hash >>> 13);
+    }
+}
@@ -0,0 +1,25 @@
+import java.io.IOException;
+
+/**
+ * Destination of the parsed transitions: the AutomatonBuilder or the sorted runs on disk (ExternalTransitions)
+ */
+interface TransitionSink {
+    /**
+     * Add a transition source > token > destination
+     *
+     * @param source      id of the source state
+     * @param symbol      id of the transition token
+     * @param destination id of the destination state
+     * @throws IOException throws when transitions can not be written
+     */
+    void addTransition(int source, int symbol, int destination) throws IOException;
+
+    /**
+     * Add transitions in the given order
+     *
+     * @param triples sequence of triples (source, token, destination)
+     * @param count   number of transitions
+     * @throws IOException throws when transitions can not be written
+     */
+    void addTransitions(int[] triples, int count) throws IOException;
+}
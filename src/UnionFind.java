@@ -0,0 +1,89 @@
+/**
+ * Disjoint set union over states ids with path compression and union by rank.
+ * Every operation takes nearly constant amortized time
+ */
+public class UnionFind {
+    /**
+     * Parent of every element; the root of the set is the parent of itself
+     */
+    private final int[] parent;
+    /**
+     * Upper bound of the height of every tree, meaningful only for roots
+     */
+    private final byte[] rank;
+    private int setsCount;
+
+    /**
+     * @param size number of elements; initially every element is in its own set
+     */
+    public UnionFind(int size) {
+        parent = new int[size];
+        rank = new byte[size];
+        setsCount = size;
+        for (int i = 0; i < size; i++) {
+            parent[i] = i;
+        }
+    }
+
+    /**
+     * Find the root of the set of the element. All elements on the path are re-linked to the root
+     *
+     * @param element id of the element
+     * @return root of the set
+     */
+    public int find(int element) {
+        int root = element;
+        while (parent[root] != root) {
+            root = parent[root];
+        }
+
+        while (parent[element] != root) {
+            int next = parent[element];
+            parent[element] = root;
+            element = next;
+        }
+
+        return root;
+    }
+
+    /**
+     * Merge sets of two elements
+     *
+     * @param first  id of the first element
+     * @param second id of the second element
+     * @return true - if elements were in different sets; Otherwise, false
+     */
+    public boolean union(int first, int second) {
+        int firstRoot = find(first);
+        int secondRoot = find(second);
+        if (firstRoot == secondRoot) {
+            return false;
+        }
+
+        if (rank[firstRoot] < rank[secondRoot]) {
+            parent[firstRoot] = secondRoot;
+        } else if (rank[firstRoot] > rank[secondRoot]) {
+            parent[secondRoot] = firstRoot;
+        } else {
+            parent[secondRoot] = firstRoot;
+            rank[firstRoot]++;
+        }
+
+        setsCount--;
+        return true;
+    }
+
+    /**
+     * @return number of elements
+     */
+    public int getSize() {
+        return parent.length;
+    }
+
+    /**
+     * @return number of disjoint sets
+     */
+    public int getSetsCount() {
+        return setsCount;
+    }
+}
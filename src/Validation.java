@@ -0,0 +1,124 @@
+import exceptions.DisjointStatesException;
+
+import java.util.Set;
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * Context of the validation of a single FSA. All data of the validation belongs to this object,
+ * so any number of FSA can be validated one after another or concurrently in one process
+ */
+public class Validation {
+    /**
+     * Provides the most general and complicated tests for FSA validation
+     */
+    private final Checker checker = new Checker();
+    /**
+     * Parallel traversal of very large FSA; it is shared by the checks of connectivity and reachability, so
+     * the incoming transitions are built at most once. It builds nothing until it is used
+     */
+    private final ParallelReachability traversal;
+    /**
+     * Provides a finished report of the FSA validation if there are no runtime errors
+     */
+    private final ReportFormation report;
+    /**
+     * Parsed FSA
+     */
+    private final Automaton automaton;
+    /**
+     * Recorder of the time and counters of every phase
+     */
+    private final PhaseRecorder recorder;
+    /**
+     * Selected checks; other checks are not run
+     */
+    private final Set<ValidationCheck> checks;
+
+    /**
+     * @param automaton parsed FSA
+     */
+    public Validation(Automaton automaton) {
+        this(automaton, new PhaseRecorder(null), ValidationCheck.ALL);
+    }
+
+    /**
+     * @param automaton parsed FSA
+     * @param recorder  recorder of the phases
+     * @param checks    selected checks
+     */
+    Validation(Automaton automaton, PhaseRecorder recorder, Set<ValidationCheck> checks) {
+        this.automaton = automaton;
+        this.recorder = recorder;
+        this.checks = checks;
+        report = new ReportFormation(checks);
+        traversal = new ParallelReachability(automaton, ForkJoinPool.commonPool());
+    }
+
+    /**
+     * Checking FSA for disjoint
+     *
+     * @throws DisjointStatesException throws when some states are disjoint
+     */
+    public void checkDisjoint() throws DisjointStatesException {
+        if (!checks.contains(ValidationCheck.DISJOINT)) {
+            return;
+        }
+
+        recorder.start();
+        boolean isDisjoint = checker.isDisjoint(automaton, traversal);
+        recorder.finish(ValidationMetrics.Phase.DISJOINT, automaton.getEdgeCount());
+
+        if (isDisjoint) {
+            throw new DisjointStatesException();
+        }
+    }
+
+    /**
+     * Complete a report: mark appearing warnings and completeness
+     *
+     * @return finished report
+     */
+    public ReportFormation makeReport() {
+        boolean isDeterminismNeeded = checks.contains(ValidationCheck.DETERMINISM);
+        boolean isCompletenessNeeded = checks.contains(ValidationCheck.COMPLETENESS);
+        Checker.TransitionsProperties properties = new Checker.TransitionsProperties(true, false);
+        if (isDeterminismNeeded || isCompletenessNeeded) {
+            // Determinism and completeness are found in one pass
+            recorder.start();
+            properties = checker.analyzeTransitions(automaton, isDeterminismNeeded, isCompletenessNeeded);
+            recorder.finish(ValidationMetrics.Phase.TRANSITIONS, automaton.getEdgeCount());
+        }
+
+        markWarnings(properties);
+        report.markCompleteness(isCompletenessNeeded && properties.isComplete());
+        return report;
+    }
+
+    /**
+     * Mark appearing warnings in final report
+     *
+     * @param properties determinism and completeness of the FSA
+     */
+    private void markWarnings(Checker.TransitionsProperties properties) {
+        // If no final states
+        if (checks.contains(ValidationCheck.FINAL_STATES) && automaton.getFinalStateCount() == 0) {
+            report.markWarning(1);
+        }
+
+        // If some states are not reachable from the initial state, but connected with other states somehow (!disjoint)
+        if (checks.contains(ValidationCheck.REACHABILITY)) {
+            recorder.start();
+            int reachableCount = checker.countReachableStates(automaton, traversal);
+            recorder.finish(ValidationMetrics.Phase.REACHABILITY, reachableCount);
+            recorder.countVisitedStates(reachableCount);
+            if (reachableCount != automaton.getStateCount()) {
+                report.markWarning(2);
+            }
+        }
+
+        // If there is more than one transition with the same transition token from particular state
+        if (checks.contains(ValidationCheck.DETERMINISM) && !properties.isDeterministic()) {
+            report.markWarning(3);
+        }
+    }
+}
@@ -0,0 +1,58 @@
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.Locale;
+import java.util.Set;
+
+/**
+ * Checks of the validation which can be selected. Not selected checks are not run at all, so structures which
+ * only they need are not built. Errors of the parsing (E1, E3, E4, E5) are always reported.
+ */
+public enum ValidationCheck {
+    /**
+     * E2: some states are disjoint
+     */
+    DISJOINT,
+    /**
+     * W1: accepting state is not defined
+     */
+    FINAL_STATES,
+    /**
+     * W2: some states are not reachable from the initial state
+     */
+    REACHABILITY,
+    /**
+     * W3: FSA is nondeterministic
+     */
+    DETERMINISM,
+    /**
+     * "FSA is complete" or "FSA is incomplete"
+     */
+    COMPLETENESS;
+
+    /**
+     * All checks, the same as the validation without the selection
+     */
+    public static final Set<ValidationCheck> ALL = Collections.unmodifiableSet(EnumSet.allOf(ValidationCheck.class));
+
+    /**
+     * @return name of the check in the arguments, e.g. "final_states"
+     */
+    public String getName() {
+        return name().toLowerCase(Locale.ROOT);
+    }
+
+    /**
+     * Parse the list of checks separated by commas, e.g. "disjoint,determinism"
+     *
+     * @param list names of the checks
+     * @return set of the checks
+     * @throws IllegalArgumentException throws when there is no check with some name
+     */
+    public static Set<ValidationCheck> parse(String list) {
+        Set<ValidationCheck> checks = EnumSet.noneOf(ValidationCheck.class);
+        for (String name : list.split(",")) {
+            checks.add(valueOf(name.strip().toUpperCase(Locale.ROOT)));
+        }
+        return checks;
+    }
+}
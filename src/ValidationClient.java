@@ -0,0 +1,54 @@
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.net.ConnectException;
+import java.net.InetAddress;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+
+/**
+ * Client of the ValidationServer on the local socket. If the server is not started,
+ * the file is validated in the current process, so the client can always replace the direct validation
+ */
+public class ValidationClient {
+    private final int port;
+
+    /**
+     * @param port port of the ValidationServer
+     */
+    public ValidationClient(int port) {
+        this.port = port;
+    }
+
+    /**
+     * Validate the file on the server
+     *
+     * @param input input file in the format of "fsa.txt"
+     * @return text of the result, the same as in "result.txt"
+     * @throws IOException throws when the server fails or the file can not be read
+     */
+    public String validate(Path input) throws IOException {
+        try (Socket socket = new Socket(InetAddress.getLoopbackAddress(), port)) {
+            BufferedWriter writer = new BufferedWriter(
+                    new OutputStreamWriter(socket.getOutputStream(), StandardCharsets.UTF_8));
+            BufferedReader reader = new BufferedReader(
+                    new InputStreamReader(socket.getInputStream(), StandardCharsets.UTF_8));
+
+            writer.write(input.toAbsolutePath() + "\n");
+            writer.flush();
+            socket.shutdownOutput();
+
+            StringBuilder response = new StringBuilder();
+            String line;
+            while ((line = reader.readLine()) != null && !line.equals(ValidationServer.END_OF_RESPONSE)) {
+                response.append(line).append('\n');
+            }
+            return response.toString();
+        } catch (ConnectException e) {
+            return FsaValidator.validate(input).toString();
+        }
+    }
+}
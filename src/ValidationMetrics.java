@@ -0,0 +1,230 @@
+import java.util.Locale;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Aggregated measurements of validations: time and allocated bytes of every phase, histograms of the phases
+ * duration and counters of the processed data. All methods are thread-safe, so one object collects measurements
+ * of a single run, of the whole batch or of the server.
+ */
+public class ValidationMetrics {
+    /**
+     * Phases of the validation in the order of execution
+     */
+    public enum Phase {
+        /**
+         * Waiting for the input bytes; it is interleaved with the parsing
+         */
+        READ,
+        /**
+         * Tokenizing and resolving names, building the FSA (without reading)
+         */
+        PARSE,
+        DISJOINT,
+        REACHABILITY,
+        /**
+         * Determinism and completeness, they are found in one pass
+         */
+        TRANSITIONS;
+
+        /**
+         * @return name of the phase in the output, e.g. "parse"
+         */
+        public String getName() {
+            return name().toLowerCase(Locale.ROOT);
+        }
+    }
+
+    public enum Counter {
+        VALIDATIONS,
+        BYTES_READ,
+        TOKENS,
+        STATES,
+        SYMBOLS,
+        EDGES,
+        /**
+         * States reached from the initial state
+         */
+        VISITED_STATES;
+
+        /**
+         * @return name of the counter in the output, e.g. "bytes_read"
+         */
+        public String getName() {
+            return name().toLowerCase(Locale.ROOT);
+        }
+    }
+
+    public enum Format {
+        JSON,
+        PROMETHEUS
+    }
+
+    /**
+     * Upper bounds of the histogram buckets in nanoseconds; the last bucket has no bound
+     */
+    private static final long[] BUCKET_BOUNDS = {
+            10_000L, 100_000L, 1_000_000L, 10_000_000L, 100_000_000L, 1_000_000_000L, 10_000_000_000L};
+    private static final double NANOS_PER_SECOND = 1e9;
+    private final Format format;
+    private final LongAdder[] phaseNanos = createAdders(Phase.values().length);
+    private final LongAdder[] phaseAllocatedBytes = createAdders(Phase.values().length);
+    /**
+     * Number of phases in every bucket: index is phase * (BUCKET_BOUNDS.length + 1) + bucket
+     */
+    private final LongAdder[] phaseBuckets = createAdders(Phase.values().length * (BUCKET_BOUNDS.length + 1));
+    private final LongAdder[] counters = createAdders(Counter.values().length);
+
+    /**
+     * @param format format of toString()
+     */
+    public ValidationMetrics(Format format) {
+        this.format = format;
+    }
+
+    /**
+     * Add the measurement of the finished phase
+     *
+     * @param phase          finished phase
+     * @param nanos          duration of the phase
+     * @param allocatedBytes bytes allocated by the validating thread during the phase
+     */
+    public void recordPhase(Phase phase, long nanos, long allocatedBytes) {
+        phaseNanos[phase.ordinal()].add(nanos);
+        phaseAllocatedBytes[phase.ordinal()].add(allocatedBytes);
+        int bucket = 0;
+        while (bucket < BUCKET_BOUNDS.length && nanos > BUCKET_BOUNDS[bucket]) {
+            bucket++;
+        }
+        phaseBuckets[phase.ordinal() * (BUCKET_BOUNDS.length + 1) + bucket].increment();
+    }
+
+    /**
+     * @param counter needed counter
+     * @param value   value which is added to the counter
+     */
+    public void add(Counter counter, long value) {
+        counters[counter.ordinal()].add(value);
+    }
+
+    /**
+     * @return total duration of the phase in all validations
+     */
+    public long getPhaseNanos(Phase phase) {
+        return phaseNanos[phase.ordinal()].sum();
+    }
+
+    /**
+     * @return number of the measured phases
+     */
+    public long getPhaseCount(Phase phase) {
+        long count = 0;
+        for (int bucket = 0; bucket <= BUCKET_BOUNDS.length; bucket++) {
+            count += getBucketCount(phase, bucket);
+        }
+        return count;
+    }
+
+    /**
+     * @return total bytes allocated in the phase in all validations
+     */
+    public long getAllocatedBytes(Phase phase) {
+        return phaseAllocatedBytes[phase.ordinal()].sum();
+    }
+
+    /**
+     * @return value of the counter
+     */
+    public long getCount(Counter counter) {
+        return counters[counter.ordinal()].sum();
+    }
+
+    /**
+     * Present metrics as one JSON object; histogram buckets are not cumulative, the bound of the last one is null
+     *
+     * @return JSON line
+     */
+    public String toJson() {
+        StringBuilder json = new StringBuilder("{\"counters\":{");
+        for (Counter counter : Counter.values()) {
+            json.append(counter.ordinal() == 0 ? "" : ",");
+            json.append('"').append(counter.getName()).append("\":").append(getCount(counter));
+        }
+
+        json.append("},\"phases\":{");
+        for (Phase phase : Phase.values()) {
+            json.append(phase.ordinal() == 0 ? "" : ",").append('"').append(phase.getName()).append("\":{");
+            json.append("\"count\":").append(getPhaseCount(phase));
+            json.append(",\"total_ns\":").append(getPhaseNanos(phase));
+            json.append(",\"allocated_bytes\":").append(getAllocatedBytes(phase));
+            json.append(",\"buckets\":[");
+            for (int bucket = 0; bucket <= BUCKET_BOUNDS.length; bucket++) {
+                json.append(bucket == 0 ? "" : ",").append("{\"le_ns\":");
+                json.append(bucket < BUCKET_BOUNDS.length ? String.valueOf(BUCKET_BOUNDS[bucket]) : "null");
+                json.append(",\"count\":").append(getBucketCount(phase, bucket)).append('}');
+            }
+            json.append("]}");
+        }
+        return json.append("}}\n").toString();
+    }
+
+    /**
+     * Present metrics in the Prometheus text exposition format
+     *
+     * @return lines of the metrics
+     */
+    public String toPrometheus() {
+        StringBuilder text = new StringBuilder();
+        for (Counter counter : Counter.values()) {
+            String name = "fsa_" + counter.getName() + "_total";
+            text.append("# TYPE ").append(name).append(" counter\n");
+            text.append(name).append(' ').append(getCount(counter)).append('\n');
+        }
+
+        text.append("# TYPE fsa_phase_allocated_bytes_total counter\n");
+        for (Phase phase : Phase.values()) {
+            text.append("fsa_phase_allocated_bytes_total{phase=\"").append(phase.getName()).append("\"} ")
+                    .append(getAllocatedBytes(phase)).append('\n');
+        }
+
+        text.append("# TYPE fsa_phase_duration_seconds histogram\n");
+        for (Phase phase : Phase.values()) {
+            String labels = "{phase=\"" + phase.getName() + "\"";
+            long cumulativeCount = 0;
+            for (int bucket = 0; bucket <= BUCKET_BOUNDS.length; bucket++) {
+                cumulativeCount += getBucketCount(phase, bucket);
+                String bound = bucket < BUCKET_BOUNDS.length ? toSeconds(BUCKET_BOUNDS[bucket]) : "+Inf";
+                text.append("fsa_phase_duration_seconds_bucket").append(labels).append(",le=\"").append(bound)
+                        .append("\"} ").append(cumulativeCount).append('\n');
+            }
+            text.append("fsa_phase_duration_seconds_sum").append(labels).append("} ")
+                    .append(toSeconds(getPhaseNanos(phase))).append('\n');
+            text.append("fsa_phase_duration_seconds_count").append(labels).append("} ")
+                    .append(cumulativeCount).append('\n');
+        }
+        return text.toString();
+    }
+
+    /**
+     * @return metrics in the format given to the constructor
+     */
+    @Override
+    public String toString() {
+        return format == Format.PROMETHEUS ? toPrometheus() : toJson();
+    }
+
+    private long getBucketCount(Phase phase, int bucket) {
+        return phaseBuckets[phase.ordinal() * (BUCKET_BOUNDS.length + 1) + bucket].sum();
+    }
+
+    private static String toSeconds(long nanos) {
+        return String.valueOf(nanos / NANOS_PER_SECOND);
+    }
+
+    private static LongAdder[] createAdders(int count) {
+        LongAdder[] adders = new LongAdder[count];
+        for (int i = 0; i < count; i++) {
+            adders[i] = new LongAdder();
+        }
+        return adders;
+    }
+}
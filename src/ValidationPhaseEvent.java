@@ -0,0 +1,35 @@
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Timespan;
+
+/**
+ * JFR event of one phase of the validation. It is recorded only when JFR is started
+ * (e.g. -XX:StartFlightRecording), otherwise it costs nearly nothing
+ */
+@Name("fsa.ValidationPhase")
+@Label("FSA Validation Phase")
+@Category("FSA Validator")
+@Description("Phase of the FSA validation: parse, disjoint, reachability or transitions")
+@StackTrace(false)
+class ValidationPhaseEvent extends Event {
+    @Label("Phase")
+    String phase;
+
+    @Label("Items")
+    @Description("Tokens for parse, visited states for reachability, transitions for other phases")
+    long items;
+
+    @Label("Bytes Read")
+    @DataAmount
+    long bytesRead;
+
+    @Label("Read Time")
+    @Description("Part of the phase spent waiting for the input")
+    @Timespan
+    long readTime;
+}
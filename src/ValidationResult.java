@@ -0,0 +1,115 @@
+import exceptions.FsaException;
+import exceptions.WarningDoesNotExistException;
+
+/**
+ * Immutable result of the FSA validation: either the first found error (E1 - E5) or the final report
+ * with warnings (W1 - W3) and completeness
+ */
+public final class ValidationResult {
+    private static final int WARNINGS_COUNT = 3;
+    private static final String ERROR_HEADER = "Error:";
+    private static final String COMPLETE_HEADER = "FSA is complete";
+    private final String errorCode;
+    private final boolean[] warnings;
+    private final boolean complete;
+    /**
+     * Text of the result exactly as it is written to the output file ("result.txt")
+     */
+    private final String text;
+
+    private ValidationResult(String errorCode, boolean[] warnings, boolean complete, String text) {
+        this.errorCode = errorCode;
+        this.warnings = warnings;
+        this.complete = complete;
+        this.text = text;
+    }
+
+    /**
+     * Create result of the validation which was stopped by the error
+     *
+     * @param error the first found error
+     * @return result with the error
+     */
+    public static ValidationResult ofError(FsaException error) {
+        return new ValidationResult(error.getCode(), new boolean[WARNINGS_COUNT], false, error.toString());
+    }
+
+    /**
+     * Create result of the successful validation
+     *
+     * @param report finished report of the FSA
+     * @return result with the warnings and completeness of the report
+     */
+    public static ValidationResult ofReport(ReportFormation report) {
+        boolean[] warnings = new boolean[WARNINGS_COUNT];
+        for (int i = 0; i < WARNINGS_COUNT; i++) {
+            warnings[i] = report.isWarningMarked(i + 1);
+        }
+        return new ValidationResult(null, warnings, report.isComplete(), report.toString());
+    }
+
+    /**
+     * Restore result from its text, e.g. from the text of the output file ("result.txt")
+     *
+     * @param text text of the result made by toString()
+     * @return result with the same error, warnings and completeness
+     */
+    public static ValidationResult ofText(String text) {
+        String[] lines = text.split("\n");
+
+        // Error:\nE1: ...
+        if (lines[0].equals(ERROR_HEADER)) {
+            return new ValidationResult(lines[1].substring(0, lines[1].indexOf(':')), new boolean[WARNINGS_COUNT],
+                    false, text);
+        }
+
+        // FSA is complete\nWarning:\nW1: ...
+        boolean[] warnings = new boolean[WARNINGS_COUNT];
+        for (int i = 1; i < lines.length; i++) {
+            for (int warning = 0; warning < WARNINGS_COUNT; warning++) {
+                if (lines[i].startsWith("W" + (warning + 1) + ":")) {
+                    warnings[warning] = true;
+                }
+            }
+        }
+        return new ValidationResult(null, warnings, lines[0].equals(COMPLETE_HEADER), text);
+    }
+
+    /**
+     * @return true - if there is no error; Otherwise, false
+     */
+    public boolean isValid() {
+        return errorCode == null;
+    }
+
+    /**
+     * @return code of the error (e.g. "E2") - if the validation was stopped by the error; Otherwise, null
+     */
+    public String getErrorCode() {
+        return errorCode;
+    }
+
+    /**
+     * @param warningNumber integer number of warning (1 - 3)
+     * @return true - if the warning appears in the report; Otherwise, false
+     * @throws WarningDoesNotExistException throws when there is no warning with this number
+     */
+    public boolean hasWarning(int warningNumber) {
+        if (!(1 <= warningNumber && warningNumber <= WARNINGS_COUNT)) {
+            throw new WarningDoesNotExistException();
+        }
+        return warnings[warningNumber - 1];
+    }
+
+    /**
+     * @return true - if FSA is complete; false - if FSA is incomplete or there is an error
+     */
+    public boolean isComplete() {
+        return complete;
+    }
+
+    @Override
+    public String toString() {
+        return text;
+    }
+}
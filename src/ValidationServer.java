@@ -0,0 +1,195 @@
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Long-lived validator which keeps the JVM and the validation code warm between requests.
+ * <p>
+ * Line protocol (the same for the local socket and for stdin/stdout): every request is one line with the path
+ * of the input file; every response is the text of the result (the same as in "result.txt") followed by an empty
+ * line. Requests are validated concurrently, responses are written in the order of requests.
+ * The request STATISTICS_REQUEST returns counters of the result cache, METRICS_REQUEST returns collected metrics.
+ */
+public class ValidationServer {
+    public static final int DEFAULT_PORT = 47391;
+    /**
+     * Line which finishes every response
+     */
+    public static final String END_OF_RESPONSE = "";
+    /**
+     * Request of the counters of the result cache
+     */
+    public static final String STATISTICS_REQUEST = ":stats";
+    /**
+     * Request of the collected metrics
+     */
+    public static final String METRICS_REQUEST = ":metrics";
+    private static final int PENDING_REQUESTS_PER_THREAD = 4;
+    private final ExecutorService executor;
+    private final int pendingRequestsLimit;
+    /**
+     * Cache of the results or null, if every request should be validated
+     */
+    private final ResultCache cache;
+    /**
+     * Collected metrics of all requests or null
+     */
+    private final ValidationMetrics metrics;
+    /**
+     * Selected checks of every request
+     */
+    private final Set<ValidationCheck> checks;
+
+    /**
+     * @param threads number of threads which validate requests of all connections
+     * @param cache   cache of the results or null
+     * @param metrics collected metrics of all requests or null
+     * @param checks  selected checks of every request
+     */
+    public ValidationServer(int threads, ResultCache cache, ValidationMetrics metrics, Set<ValidationCheck> checks) {
+        executor = Executors.newFixedThreadPool(threads);
+        pendingRequestsLimit = PENDING_REQUESTS_PER_THREAD * threads;
+        this.cache = cache;
+        this.metrics = metrics;
+        this.checks = checks;
+    }
+
+    /**
+     * Accept connections on the loopback interface until the process is stopped
+     *
+     * @param port port of the socket
+     * @throws IOException throws when socket can not be opened
+     */
+    public void listen(int port) throws IOException {
+        try (ServerSocket serverSocket = new ServerSocket(port, 0, InetAddress.getLoopbackAddress())) {
+            while (true) {
+                Socket socket = serverSocket.accept();
+                Thread connection = new Thread(() -> serveConnection(socket), "connection-" + socket.getPort());
+                connection.setDaemon(true);
+                connection.start();
+            }
+        }
+    }
+
+    private void serveConnection(Socket socket) {
+        try (socket) {
+            serve(new BufferedReader(new InputStreamReader(socket.getInputStream(), StandardCharsets.UTF_8)),
+                    new BufferedWriter(new OutputStreamWriter(socket.getOutputStream(), StandardCharsets.UTF_8)));
+        } catch (IOException | InterruptedException e) {
+            System.err.println("Connection is closed: " + e);
+        }
+    }
+
+    /**
+     * Serve requests from the reader until the end of the input
+     *
+     * @param requests  reader of the requests
+     * @param responses writer of the responses
+     * @throws IOException          throws when requests can not be read or responses can not be written
+     * @throws InterruptedException throws when the thread is interrupted while waiting for the validation
+     */
+    public void serve(BufferedReader requests, Writer responses) throws IOException, InterruptedException {
+        // Validations in the order of requests; the bounded queue stops reading when too many requests are pending
+        BlockingQueue<Future<String>> pending = new ArrayBlockingQueue<>(pendingRequestsLimit);
+        Future<String> endOfRequests = executor.submit(() -> null);
+        Thread writer = new Thread(() -> writeResponses(pending, endOfRequests, responses), "responses");
+        writer.start();
+
+        try {
+            String request;
+            while ((request = requests.readLine()) != null) {
+                if (request.isBlank()) {
+                    continue;
+                }
+                String input = request.strip();
+                pending.put(executor.submit(() -> validate(input)));
+            }
+        } finally {
+            pending.put(endOfRequests);
+            writer.join();
+        }
+    }
+
+    private void writeResponses(BlockingQueue<Future<String>> pending, Future<String> endOfRequests,
+                                Writer responses) {
+        boolean isBroken = false;
+        try {
+            Future<String> response;
+            while ((response = pending.take()) != endOfRequests) {
+                // After the failure responses are only taken, so the reading thread is never blocked
+                if (isBroken) {
+                    continue;
+                }
+
+                String text;
+                try {
+                    text = response.get();
+                } catch (ExecutionException e) {
+                    // Failures of the request are already responses, so only errors like OutOfMemoryError are here
+                    text = "Failure:\n" + e.getCause() + "\n";
+                }
+
+                try {
+                    responses.write(text);
+                    responses.write(END_OF_RESPONSE + "\n");
+                    // Flush only when there is no other finished response to write
+                    if (pending.isEmpty()) {
+                        responses.flush();
+                    }
+                } catch (IOException e) {
+                    System.err.println("Responses can not be written: " + e);
+                    isBroken = true;
+                }
+            }
+
+            if (!isBroken) {
+                responses.flush();
+            }
+        } catch (InterruptedException | IOException e) {
+            System.err.println("Responses can not be written: " + e);
+        }
+    }
+
+    /**
+     * @return result text or the description of the failure; the failure of one request (e.g. the corrupted
+     * binary file) does not affect other requests
+     */
+    private String validate(String input) {
+        if (input.equals(STATISTICS_REQUEST)) {
+            return (cache == null ? "Cache is disabled" : cache.toString()) + "\n";
+        }
+        if (input.equals(METRICS_REQUEST)) {
+            return metrics == null ? "Metrics are disabled\n" : metrics.toString();
+        }
+
+        try {
+            Path path = Path.of(input);
+            return (cache == null ? FsaValidator.validate(path, metrics, checks)
+                    : cache.validate(path, metrics, checks)).toString();
+        } catch (IOException | RuntimeException e) {
+            return "Failure:\n" + e + "\n";
+        }
+    }
+
+    /**
+     * Stop validation threads
+     */
+    public void shutdown() {
+        executor.shutdown();
+    }
+}
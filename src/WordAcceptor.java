@@ -0,0 +1,330 @@
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.IntStream;
+
+/**
+ * Execution of the FSA on words. Every word is the sequence of ids of transition tokens (see getSymbol());
+ * the result of the word is the final state in which it is accepted or NO_STATE, if it is rejected. When the
+ * nondeterministic FSA reaches several final states, the one with the smallest id is reported.
+ * <p>
+ * The representation depends on the FSA:
+ * <ul>
+ * <li>deterministic - the dense table of destinations [state * tokens + token], one array read per token;</li>
+ * <li>nondeterministic - the set of current states is the bitmask in long[]. Small FSA keep for every token
+ * and every byte of the bitmask the union of destinations of all 256 values of the byte, so the step is an OR
+ * of one precomputed bitmask per byte regardless of the number of current states; larger FSA keep transitions
+ * of every state sorted by the token and set the bits of their destinations.</li>
+ * </ul>
+ * The FSA is read once in the constructor, and running words does not allocate: buffers of the set
+ * simulation are in the Runner, which is reused for all words of one thread.
+ */
+public class WordAcceptor {
+    /**
+     * Id of the token which is not in the alphabet; words with it are rejected
+     */
+    public static final int NO_SYMBOL = -1;
+    /**
+     * Maximal number of entries of the dense table of the deterministic FSA
+     */
+    private static final long TABLE_LIMIT = 1L << 26;
+    /**
+     * Maximal number of longs of the unions of destinations of the nondeterministic FSA
+     */
+    private static final long MASKS_LIMIT = 1L << 20;
+    private static final int CHUNK_SIZE = 1 << 12;
+    private final int stateCount;
+    private final int symbolCount;
+    private final int initialState;
+    /**
+     * Number of longs of the bitmask of states
+     */
+    private final int maskLength;
+    private final SymbolTable alphabet = new SymbolTable();
+    /**
+     * Final states as the bitmask
+     */
+    private final long[] finalStates;
+    /**
+     * Destination of every state and token or NO_STATE; null if the FSA is simulated by sets
+     */
+    private int[] table;
+    /**
+     * Union of destinations of the states of every token, byte of the set and value of the byte: the bitmask
+     * starts at ((token * maskBytes + byte) * 256 + value) * maskLength; null if transitions are used
+     */
+    private long[] masks;
+    /**
+     * Transitions of every state sorted by the token: state s has [outStarts[s], outStarts[s + 1])
+     */
+    private int[] outStarts;
+    private int[] labels;
+    private int[] targets;
+
+    /**
+     * @param automaton parsed FSA with the initial state
+     * @throws IllegalArgumentException throws when the initial state is not defined
+     */
+    public WordAcceptor(Automaton automaton) {
+        if (automaton.getInitialState() == Automaton.NO_STATE) {
+            throw new IllegalArgumentException("Initial state is not defined");
+        }
+
+        stateCount = automaton.getStateCount();
+        symbolCount = automaton.getSymbolCount();
+        initialState = automaton.getInitialState();
+        maskLength = (stateCount + 63) >>> 6;
+        for (int symbol = 0; symbol < symbolCount; symbol++) {
+            alphabet.add(automaton.getSymbolName(symbol));
+        }
+
+        finalStates = new long[maskLength];
+        for (int i = 0; i < automaton.getFinalStateCount(); i++) {
+            int state = automaton.getFinalState(i);
+            finalStates[state >>> 6] |= 1L << state;
+        }
+
+        long rows = (long) stateCount * symbolCount;
+        if (rows <= TABLE_LIMIT && new Checker().isDeterministic(automaton)) {
+            buildTable(automaton);
+        } else if (symbolCount * (long) (maskLength << 3) * 256 * maskLength <= MASKS_LIMIT) {
+            buildMasks(automaton);
+        } else {
+            buildSortedTransitions(automaton);
+        }
+    }
+
+    private void buildTable(Automaton automaton) {
+        table = new int[stateCount * symbolCount];
+        Arrays.fill(table, Automaton.NO_STATE);
+        for (int state = 0; state < stateCount; state++) {
+            for (int edge = automaton.getOutStart(state); edge < automaton.getOutEnd(state); edge++) {
+                table[state * symbolCount + automaton.getLabel(edge)] = automaton.getTarget(edge);
+            }
+        }
+    }
+
+    private void buildMasks(Automaton automaton) {
+        int maskBytes = maskLength << 3;
+        masks = new long[symbolCount * maskBytes * 256 * maskLength];
+        // Destinations of a single state are the union for the value with one bit
+        for (int state = 0; state < stateCount; state++) {
+            for (int edge = automaton.getOutStart(state); edge < automaton.getOutEnd(state); edge++) {
+                int target = automaton.getTarget(edge);
+                int value = 1 << (state & 7);
+                masks[getMaskStart(automaton.getLabel(edge), state >>> 3, value) + (target >>> 6)] |= 1L << target;
+            }
+        }
+
+        // Union for other values is the union for the value without its lowest bit and for the lowest bit
+        for (int symbol = 0; symbol < symbolCount; symbol++) {
+            for (int i = 0; i < maskBytes; i++) {
+                for (int value = 3; value < 256; value++) {
+                    int rest = value & (value - 1);
+                    if (rest == 0) {
+                        continue;
+                    }
+                    int mask = getMaskStart(symbol, i, value);
+                    int restMask = getMaskStart(symbol, i, rest);
+                    int bitMask = getMaskStart(symbol, i, value & -value);
+                    for (int j = 0; j < maskLength; j++) {
+                        masks[mask + j] = masks[restMask + j] | masks[bitMask + j];
+                    }
+                }
+            }
+        }
+    }
+
+    private int getMaskStart(int symbol, int maskByte, int value) {
+        return ((symbol * (maskLength << 3) + maskByte) * 256 + value) * maskLength;
+    }
+
+    private void buildSortedTransitions(Automaton automaton) {
+        outStarts = new int[stateCount + 1];
+        labels = new int[automaton.getEdgeCount()];
+        targets = new int[automaton.getEdgeCount()];
+        // Transitions of the state as (token << 32 | destination), sorted to group them by the token
+        long[] pairs = new long[16];
+        int edgeCount = 0;
+        for (int state = 0; state < stateCount; state++) {
+            int start = automaton.getOutStart(state);
+            int degree = automaton.getOutEnd(state) - start;
+            if (pairs.length < degree) {
+                pairs = new long[Math.max(degree, 2 * pairs.length)];
+            }
+            for (int i = 0; i < degree; i++) {
+                pairs[i] = (long) automaton.getLabel(start + i) << 32 | automaton.getTarget(start + i);
+            }
+            Arrays.sort(pairs, 0, degree);
+
+            outStarts[state] = edgeCount;
+            for (int i = 0; i < degree; i++) {
+                labels[edgeCount] = (int) (pairs[i] >>> 32);
+                targets[edgeCount++] = (int) pairs[i];
+            }
+        }
+        outStarts[stateCount] = edgeCount;
+    }
+
+    /**
+     * @param name transition token
+     * @return id of the token or NO_SYMBOL, if it is not in the alphabet
+     */
+    public int getSymbol(String name) {
+        int id = alphabet.getId(name);
+        return id == SymbolTable.NOT_FOUND ? NO_SYMBOL : id;
+    }
+
+    /**
+     * @return true - if words are run on the dense table of the deterministic FSA; Otherwise, false
+     */
+    public boolean isTableDriven() {
+        return table != null;
+    }
+
+    /**
+     * Run one word. For many words use newRunner() or acceptAll(), which do not allocate per word
+     *
+     * @param word ids of transition tokens
+     * @return final state in which the word is accepted or NO_STATE
+     */
+    public int accept(int[] word) {
+        return newRunner().accept(word, 0, word.length);
+    }
+
+    /**
+     * @return runner with its own buffers; it is not thread-safe
+     */
+    public Runner newRunner() {
+        return new Runner();
+    }
+
+    /**
+     * Run all words on the pool. Words are stored one after another: the word i is
+     * [wordStarts[i], wordStarts[i + 1]) of the symbols
+     *
+     * @param symbols    ids of transition tokens of all words
+     * @param wordStarts start of every word and the end of the last word
+     * @param pool       pool which runs chunks of words
+     * @return final state of every word in which it is accepted or NO_STATE
+     */
+    public int[] acceptAll(int[] symbols, int[] wordStarts, ForkJoinPool pool) {
+        int wordCount = wordStarts.length - 1;
+        int[] results = new int[Math.max(wordCount, 0)];
+        int chunks = (results.length + CHUNK_SIZE - 1) / CHUNK_SIZE;
+
+        pool.submit(() -> IntStream.range(0, chunks).parallel().forEach(chunk -> {
+            Runner runner = new Runner();
+            int end = Math.min(results.length, (chunk + 1) * CHUNK_SIZE);
+            for (int word = chunk * CHUNK_SIZE; word < end; word++) {
+                results[word] = runner.accept(symbols, wordStarts[word], wordStarts[word + 1]);
+            }
+        })).join();
+        return results;
+    }
+
+    /**
+     * Buffers of the set simulation of one thread
+     */
+    public class Runner {
+        private long[] current;
+        private long[] next;
+
+        private Runner() {
+            if (table == null) {
+                current = new long[maskLength];
+                next = new long[maskLength];
+            }
+        }
+
+        /**
+         * @param symbols ids of transition tokens
+         * @param from    start of the word in the array
+         * @param to      end of the word in the array
+         * @return final state in which the word is accepted or NO_STATE
+         */
+        public int accept(int[] symbols, int from, int to) {
+            for (int i = from; i < to; i++) {
+                if (symbols[i] < 0 || symbols[i] >= symbolCount) {
+                    return Automaton.NO_STATE;
+                }
+            }
+            return table != null ? runTable(symbols, from, to) : runSets(symbols, from, to);
+        }
+
+        private int runTable(int[] symbols, int from, int to) {
+            int state = initialState;
+            for (int i = from; i < to && state != Automaton.NO_STATE; i++) {
+                state = table[state * symbolCount + symbols[i]];
+            }
+            return state != Automaton.NO_STATE && (finalStates[state >>> 6] & 1L << state) != 0 ? state
+                    : Automaton.NO_STATE;
+        }
+
+        /**
+         * Only the longs [low, high) of the current set may be not zero, so sets of a few states are cheap
+         * also for the large FSA
+         */
+        private int runSets(int[] symbols, int from, int to) {
+            current[initialState >>> 6] = 1L << initialState;
+            int low = initialState >>> 6;
+            int high = low + 1;
+
+            for (int i = from; i < to && low < high; i++) {
+                int symbol = symbols[i];
+                int nextLow = maskLength;
+                int nextHigh = 0;
+                if (masks != null) {
+                    for (int word = low; word < high; word++) {
+                        long bits = current[word];
+                        current[word] = 0;
+                        for (int maskByte = word << 3; bits != 0; maskByte++, bits >>>= 8) {
+                            int value = (int) bits & 0xFF;
+                            if (value != 0) {
+                                int mask = getMaskStart(symbol, maskByte, value);
+                                for (int j = 0; j < maskLength; j++) {
+                                    next[j] |= masks[mask + j];
+                                }
+                            }
+                        }
+                    }
+                    nextLow = 0;
+                    nextHigh = maskLength;
+                } else {
+                    for (int word = low; word < high; word++) {
+                        long bits = current[word];
+                        current[word] = 0;
+                        while (bits != 0) {
+                            int state = word << 6 | Long.numberOfTrailingZeros(bits);
+                            bits &= bits - 1;
+                            for (int edge = outStarts[state]; edge < outStarts[state + 1]
+                                    && labels[edge] <= symbol; edge++) {
+                                if (labels[edge] == symbol) {
+                                    int target = targets[edge];
+                                    next[target >>> 6] |= 1L << target;
+                                    nextLow = Math.min(nextLow, target >>> 6);
+                                    nextHigh = Math.max(nextHigh, (target >>> 6) + 1);
+                                }
+                            }
+                        }
+                    }
+                }
+
+                long[] swap = current;
+                current = next;
+                next = swap;
+                low = nextLow;
+                high = nextHigh;
+            }
+
+            int accepted = Automaton.NO_STATE;
+            for (int word = low; word < high; word++) {
+                long bits = current[word] & finalStates[word];
+                if (bits != 0 && accepted == Automaton.NO_STATE) {
+                    accepted = word << 6 | Long.numberOfTrailingZeros(bits);
+                }
+                current[word] = 0;
+            }
+            return accepted;
+        }
+    }
+}
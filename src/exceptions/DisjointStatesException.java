@@ -1,8 +1,13 @@
 package exceptions;
 
-public class DisjointStatesException extends Exception {
+public class DisjointStatesException extends FsaException {
     @Override
     public String toString() {
         return "Error:\nE2: Some states are disjoint\n";
     }
+
+    @Override
+    public String getCode() {
+        return "E2";
+    }
 }
@@ -0,0 +1,11 @@
+package exceptions;
+
+/**
+ * Common parent of all errors of the FSA validation (E1 - E5)
+ */
+public abstract class FsaException extends Exception {
+    /**
+     * @return code of the error, e.g. "E1"
+     */
+    public abstract String getCode();
+}
@@ -1,6 +1,6 @@
 package exceptions;
 
-public class IncorrectStateException extends Exception {
+public class IncorrectStateException extends FsaException {
     private final String stateName;
 
     public IncorrectStateException(String stateName) {
@@ -10,4 +10,9 @@ public class IncorrectStateException extends Exception {
     public String toString() {
         return "Error:\nE1: A state '" + stateName + "' is not in the set of states\n";
     }
+
+    @Override
+    public String getCode() {
+        return "E1";
+    }
 }
@@ -1,8 +1,13 @@
 package exceptions;
 
-public class InitialStateNotDefinedException extends Exception {
+public class InitialStateNotDefinedException extends FsaException {
     @Override
     public String toString() {
         return "Error:\nE4: Initial state is not defined\n";
     }
+
+    @Override
+    public String getCode() {
+        return "E4";
+    }
 }
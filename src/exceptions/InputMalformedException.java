@@ -1,8 +1,13 @@
 package exceptions;
 
-public class InputMalformedException extends Exception {
+public class InputMalformedException extends FsaException {
     @Override
     public String toString() {
         return "Error:\nE5: Input file is malformed\n";
     }
+
+    @Override
+    public String getCode() {
+        return "E5";
+    }
 }
@@ -0,0 +1,20 @@
+package exceptions;
+
+/**
+ * Building or transformation of the FSA (e.g. determinization) was stopped, since the result exceeds the given limit
+ */
+public class LimitExceededException extends Exception {
+    private final String limit;
+
+    /**
+     * @param limit description of the exceeded limit, e.g. "1000 states"
+     */
+    public LimitExceededException(String limit) {
+        super("Result exceeds the limit of " + limit);
+        this.limit = limit;
+    }
+
+    public String toString() {
+        return "Error:\nResult exceeds the limit of " + limit + "\n";
+    }
+}
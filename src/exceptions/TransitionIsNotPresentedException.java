@@ -1,6 +1,6 @@
 package exceptions;
 
-public class TransitionIsNotPresentedException extends Exception {
+public class TransitionIsNotPresentedException extends FsaException {
     private final String transitionName;
 
     public TransitionIsNotPresentedException(String transitionName) {
@@ -10,4 +10,9 @@ public class TransitionIsNotPresentedException extends Exception {
     public String toString() {
         return "Error:\nE3: A transition '" + transitionName + "' is not represented in the alphabet\n";
     }
+
+    @Override
+    public String getCode() {
+        return "E3";
+    }
 }
@@ -1,6 +1,6 @@
 package exceptions;
 
-public class WarningDoesNotExistException extends Exception {
+public class WarningDoesNotExistException extends IllegalArgumentException {
     @Override
     public String toString() {
         return "Error:\nE6: Warning with this number does not exist\n";
@@ -0,0 +1,72 @@
+import exceptions.FsaException;
+import exceptions.LimitExceededException;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * After every random edit the incremental results of EditableAutomaton are the same as the results of the full
+ * validation of its snapshot
+ */
+class EditableAutomatonTest {
+    private static final int ROUNDS = 300;
+    private static final int EDITS = 200;
+
+    @Test
+    void incrementalResultIsSameAsFullValidation() throws FsaException, LimitExceededException {
+        Random random = new Random(13);
+        for (int round = 0; round < ROUNDS; round++) {
+            SymbolTable alphabet = new SymbolTable();
+            int symbolCount = 1 + random.nextInt(3);
+            for (int symbol = 0; symbol < symbolCount; symbol++) {
+                alphabet.add("a" + symbol);
+            }
+
+            EditableAutomaton automaton = new EditableAutomaton(alphabet);
+            List<String> names = new ArrayList<>();
+            for (int edit = 0; edit < EDITS; edit++) {
+                applyRandomEdit(automaton, names, "s" + edit, symbolCount, random);
+
+                Automaton snapshot = automaton.toAutomaton();
+                // The full validation stops by E4, so there is nothing to compare
+                if (snapshot.getInitialState() == Automaton.NO_STATE) {
+                    continue;
+                }
+                assertEquals(FsaValidator.validate(snapshot).toString(), automaton.getResult().toString(),
+                        "round " + round + ", edit " + edit);
+            }
+        }
+    }
+
+    /**
+     * Add or remove a state, a final state or a transition, or change the initial state; only live states are used
+     */
+    private static void applyRandomEdit(EditableAutomaton automaton, List<String> names, String newName,
+                                        int symbolCount, Random random) throws FsaException {
+        int operation = random.nextInt(11);
+        if (operation < 2 || names.isEmpty()) {
+            automaton.addState(newName);
+            names.add(newName);
+        } else if (operation == 2 && names.size() > 1) {
+            automaton.removeState(names.remove(random.nextInt(names.size())));
+        } else if (operation == 3) {
+            automaton.setInitialState(pick(names, random));
+        } else if (operation == 4) {
+            automaton.addFinalState(pick(names, random));
+        } else if (operation == 5) {
+            automaton.removeFinalState(pick(names, random));
+        } else if (operation < 9) {
+            automaton.addTransition(pick(names, random), "a" + random.nextInt(symbolCount), pick(names, random));
+        } else {
+            automaton.removeTransition(pick(names, random), "a" + random.nextInt(symbolCount), pick(names, random));
+        }
+    }
+
+    private static String pick(List<String> names, Random random) {
+        return names.get(random.nextInt(names.size()));
+    }
+}
@@ -0,0 +1,99 @@
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.EnumSet;
+import java.util.Random;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * ExternalValidator gives the same results as FsaValidator on the same inputs, also when transitions are split
+ * into many runs
+ */
+class ExternalValidatorTest {
+    private static final int[] RUN_SIZES = {1, 7, 1000, ExternalValidator.DEFAULT_RUN_SIZE};
+    /**
+     * Large inputs are split into at most this number of runs, so the test stays fast
+     */
+    private static final int MAX_RUNS = 50;
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void resultIsSameAsInMemoryValidation() throws IOException {
+        Random random = new Random(23);
+        Path input = directory.resolve("fsa.txt");
+        for (int round = 0; round < 100; round++) {
+            int transitionCount = round % 10 == 0 ? 5000 : random.nextInt(60);
+            Files.writeString(input, generate(random, transitionCount));
+            Set<ValidationCheck> checks = round % 3 == 0 ? selectChecks(random) : ValidationCheck.ALL;
+
+            String expected = FsaValidator.validate(input, null, checks).toString();
+            for (int runSize : RUN_SIZES) {
+                int size = Math.max(runSize, transitionCount / MAX_RUNS);
+                assertEquals(expected, new ExternalValidator(directory, size).validate(input, null, checks)
+                        .toString(), "round " + round + ", run size " + size);
+            }
+        }
+    }
+
+    @Test
+    void errorsAreSameAsInMemoryValidation() throws IOException {
+        Path input = directory.resolve("fsa.txt");
+        String[] inputs = {
+                "states=[a,b]\nalpha=[x]\ninit.st=[a]\nfin.st=[]\ntrans=[a>x>b,b>x>c]\n",
+                "states=[a,b]\nalpha=[x]\ninit.st=[a]\nfin.st=[]\ntrans=[a>y>b]\n",
+                "states=[a,b]\nalpha=[x]\ninit.st=[]\nfin.st=[]\ntrans=[a>x>b]\n",
+                "states=[a,b]\nalpha=[x]\ninit.st=[a]\nfin.st=[]\ntrans=[a>x]\n",
+                "states=[a,b]\nalpha=[x]\ninit.st=[a]\nfin.st=[]\ntrans=[a>x>a]\n",
+                "states=[a,b]\nalpha=[x]\ninit.st=[a]\nfin.st=[b,]\ntrans=[a>x>b,b>x>a,]\n"
+        };
+        for (String text : inputs) {
+            Files.writeString(input, text);
+            assertEquals(FsaValidator.validate(input).toString(),
+                    new ExternalValidator(directory, 1).validate(input, null, ValidationCheck.ALL).toString(), text);
+        }
+    }
+
+    /**
+     * Random FSA: few states make complete and connected FSA likely, many states make disjoint and unreachable ones
+     */
+    private static String generate(Random random, int transitionCount) {
+        int stateCount = 1 + random.nextInt(transitionCount < 100 ? 8 : 2000);
+        int symbolCount = 1 + random.nextInt(3);
+        StringBuilder text = new StringBuilder("states=[");
+        for (int state = 0; state < stateCount; state++) {
+            text.append(state == 0 ? "" : ",").append('s').append(state);
+        }
+        text.append("]\nalpha=[");
+        for (int symbol = 0; symbol < symbolCount; symbol++) {
+            text.append(symbol == 0 ? "" : ",").append('a').append(symbol);
+        }
+        text.append("]\ninit.st=[s").append(random.nextInt(stateCount)).append("]\nfin.st=[");
+        if (random.nextBoolean()) {
+            text.append('s').append(random.nextInt(stateCount));
+        }
+        text.append("]\ntrans=[");
+        for (int i = 0; i < transitionCount; i++) {
+            text.append(i == 0 ? "" : ",").append('s').append(random.nextInt(stateCount))
+                    .append(">a").append(random.nextInt(symbolCount))
+                    .append(">s").append(random.nextInt(stateCount));
+        }
+        return text.append("]\n").toString();
+    }
+
+    private static Set<ValidationCheck> selectChecks(Random random) {
+        Set<ValidationCheck> checks = EnumSet.noneOf(ValidationCheck.class);
+        for (ValidationCheck check : ValidationCheck.values()) {
+            if (random.nextBoolean()) {
+                checks.add(check);
+            }
+        }
+        return checks;
+    }
+}
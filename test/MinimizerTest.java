@@ -0,0 +1,168 @@
+import exceptions.FsaException;
+import exceptions.LimitExceededException;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.channels.Channels;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * The FSA built by Minimizer has the number of states found by the Moore partition refinement, accepts the same
+ * words and maps every original state to the state in which the same words end
+ */
+class MinimizerTest {
+    private static final int ROUNDS = 500;
+    private static final int WORDS = 200;
+
+    @Test
+    void minimalFsaIsEquivalentAndHasMooreStateCount() throws IOException, FsaException, LimitExceededException {
+        Random random = new Random(24);
+        for (int round = 0; round < ROUNDS; round++) {
+            int stateCount = 1 + random.nextInt(round % 5 == 0 ? 400 : 12);
+            int symbolCount = 1 + random.nextInt(4);
+            Automaton automaton = parse(generate(random, stateCount, symbolCount));
+            Minimizer minimizer = new Minimizer(automaton);
+            Automaton minimal = minimizer.minimize();
+
+            assertEquals(countMooreClasses(automaton), minimal.getStateCount(), "round " + round);
+            Checker.TransitionsProperties properties = new Checker().analyzeTransitions(minimal);
+            assertTrue(properties.isDeterministic() && properties.isComplete(), "round " + round);
+
+            for (int i = 0; i < WORDS; i++) {
+                int[] word = new int[random.nextInt(10)];
+                for (int j = 0; j < word.length; j++) {
+                    word[j] = random.nextInt(symbolCount);
+                }
+                int end = run(automaton, word);
+                int minimalEnd = run(minimal, word);
+                assertEquals(minimizer.getMinimizedState(end), minimalEnd, "round " + round);
+                assertEquals(isFinal(automaton, end), isFinal(minimal, minimalEnd), "round " + round);
+            }
+        }
+    }
+
+    /**
+     * Random complete DFA; destinations from a small range make many equivalent states
+     */
+    private static String generate(Random random, int stateCount, int symbolCount) {
+        StringBuilder text = new StringBuilder("states=[");
+        for (int state = 0; state < stateCount; state++) {
+            text.append(state == 0 ? "" : ",").append('s').append(state);
+        }
+        text.append("]\nalpha=[");
+        for (int symbol = 0; symbol < symbolCount; symbol++) {
+            text.append(symbol == 0 ? "" : ",").append('a').append(symbol);
+        }
+        text.append("]\ninit.st=[s").append(random.nextInt(stateCount)).append("]\nfin.st=[");
+        int finalStateRate = random.nextInt(4);
+        boolean isFirst = true;
+        for (int state = 0; state < stateCount; state++) {
+            if (finalStateRate > 0 && random.nextInt(finalStateRate + 1) == 0) {
+                text.append(isFirst ? "" : ",").append('s').append(state);
+                isFirst = false;
+            }
+        }
+        text.append("]\ntrans=[");
+        int range = 1 + random.nextInt(stateCount);
+        isFirst = true;
+        for (int state = 0; state < stateCount; state++) {
+            for (int symbol = 0; symbol < symbolCount; symbol++) {
+                int target = random.nextInt(3) == 0 ? random.nextInt(stateCount) : random.nextInt(range);
+                text.append(isFirst ? "" : ",").append('s').append(state).append(">a").append(symbol)
+                        .append(">s").append(target);
+                isFirst = false;
+            }
+        }
+        return text.append("]\n").toString();
+    }
+
+    private static Automaton parse(String text) throws IOException, FsaException, LimitExceededException {
+        byte[] bytes = text.getBytes(StandardCharsets.UTF_8);
+        return new FsaParser(Channels.newChannel(new ByteArrayInputStream(bytes))).parse();
+    }
+
+    /**
+     * Number of classes of the reachable states by the Moore algorithm: classes are split by the classes of the
+     * destinations until their number does not grow
+     */
+    private static int countMooreClasses(Automaton automaton) {
+        int stateCount = automaton.getStateCount();
+        int symbolCount = automaton.getSymbolCount();
+        boolean[] isReachable = new boolean[stateCount];
+        ArrayDeque<Integer> queue = new ArrayDeque<>();
+        isReachable[automaton.getInitialState()] = true;
+        queue.add(automaton.getInitialState());
+        while (!queue.isEmpty()) {
+            int state = queue.poll();
+            for (int symbol = 0; symbol < symbolCount; symbol++) {
+                int target = step(automaton, state, symbol);
+                if (!isReachable[target]) {
+                    isReachable[target] = true;
+                    queue.add(target);
+                }
+            }
+        }
+
+        int[] classes = new int[stateCount];
+        for (int state = 0; state < stateCount; state++) {
+            classes[state] = isFinal(automaton, state) ? 1 : 0;
+        }
+        int classCount = -1;
+        while (true) {
+            Map<List<Integer>, Integer> signatures = new HashMap<>();
+            int[] next = new int[stateCount];
+            for (int state = 0; state < stateCount; state++) {
+                if (!isReachable[state]) {
+                    continue;
+                }
+                Integer[] signature = new Integer[symbolCount + 1];
+                signature[0] = classes[state];
+                for (int symbol = 0; symbol < symbolCount; symbol++) {
+                    signature[symbol + 1] = classes[step(automaton, state, symbol)];
+                }
+                next[state] = signatures.computeIfAbsent(Arrays.asList(signature), key -> signatures.size());
+            }
+            classes = next;
+            if (signatures.size() == classCount) {
+                return classCount;
+            }
+            classCount = signatures.size();
+        }
+    }
+
+    private static int run(Automaton automaton, int[] word) {
+        int state = automaton.getInitialState();
+        for (int symbol : word) {
+            state = step(automaton, state, symbol);
+        }
+        return state;
+    }
+
+    private static int step(Automaton automaton, int state, int symbol) {
+        for (int edge = automaton.getOutStart(state); edge < automaton.getOutEnd(state); edge++) {
+            if (automaton.getLabel(edge) == symbol) {
+                return automaton.getTarget(edge);
+            }
+        }
+        throw new IllegalStateException("FSA is not complete");
+    }
+
+    private static boolean isFinal(Automaton automaton, int state) {
+        for (int i = 0; i < automaton.getFinalStateCount(); i++) {
+            if (automaton.getFinalState(i) == state) {
+                return true;
+            }
+        }
+        return false;
+    }
+}